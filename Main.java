@@ -1,6 +1,11 @@
 public class Main {
   public static void main(String[] args) {
     // assert 1 == 2 : "assert is activated";
-    new ProjectTimeManager.GuiManager();
+    if (args.length > 0) {
+      // without GUI, AWT and Swing are not loaded
+      ProjectTimeManager.CommandLine.main(args);
+    } else {
+      new ProjectTimeManager.GuiManager();
+    }
   }
 }
@@ -0,0 +1,249 @@
+package ProjectTimeManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/// This class reads and writes the archive of closed months, which stores the intervals compactly:
+/// the gap from the end of the previous interval to the start and the duration, both in seconds as
+/// variable-length integers of 7 bits per byte, optionally compressed with gzip. A session of some
+/// hours costs about 5 bytes instead of one line of 42 bytes.
+public class ArchiveLog {
+  /** The first bytes of an archive, "PTMA". */
+  private static final int _magic = 0x50544d41;
+
+  /** The version of the encoding. */
+  private static final int _version = 1;
+
+  /** The flag in the header for the body compressed with gzip. */
+  private static final int _flag_gzip = 1;
+
+  /** Whether archives are compressed with gzip, can be set with -Dptm.archive.gzip=false. */
+  private static final boolean _is_gzip_default =
+      Boolean.parseBoolean(System.getProperty("ptm.archive.gzip", "true"));
+
+  /// This class decodes one archive as a stream, one interval after another, thus the archive is
+  /// never held in memory as a whole.
+  public static class Decoder implements AutoCloseable {
+    /** The stream of the body. */
+    private final InputStream _input;
+
+    /** The number of intervals which are not yet decoded. */
+    private long _count_left;
+
+    /** The start of the current interval in seconds from epoch. */
+    private long _start;
+
+    /** The end of the current interval in seconds from epoch, or of the base before the first. */
+    private long _end;
+
+    /**
+     * Open one archive and read its header.
+     *
+     * @param filename The filename of the archive.
+     * @throws IOException If the archive cannot be read or has a wrong header.
+     */
+    public Decoder(final String filename) throws IOException {
+      InputStream input = new BufferedInputStream(new FileInputStream(filename));
+      try {
+        if (readInt(input) != _magic || input.read() != _version) {
+          throw new IOException("archive " + filename + " has wrong header");
+        }
+        final int flags = input.read();
+        if ((flags & _flag_gzip) != 0) {
+          input = new BufferedInputStream(new GZIPInputStream(input));
+        }
+        _count_left = readVarLong(input);
+        _end = decodeZigZag(readVarLong(input));
+      } catch (IOException ex) {
+        input.close();
+        throw ex;
+      }
+      _input = input;
+    }
+
+    /** Get the number of intervals which are not yet decoded. */
+    public long getCountLeft() {
+      return _count_left;
+    }
+
+    /**
+     * Decode the next interval.
+     *
+     * @return Whether there is one more interval.
+     * @throws IOException If the archive is truncated.
+     */
+    public boolean next() throws IOException {
+      if (_count_left == 0l) {
+        return false;
+      }
+      --_count_left;
+      _start = _end + readVarLong(_input);
+      _end = _start + readVarLong(_input);
+      return true;
+    }
+
+    /** Get the start of the current interval in seconds from epoch. */
+    public long getStartSecond() {
+      return _start;
+    }
+
+    /** Get the end of the current interval in seconds from epoch. */
+    public long getEndSecond() {
+      return _end;
+    }
+
+    @Override
+    public void close() throws IOException {
+      _input.close();
+    }
+  }
+
+  /**
+   * Read one big-endian integer.
+   *
+   * @param input The stream to read.
+   * @return The integer.
+   * @throws IOException If the stream ends.
+   */
+  private static int readInt(final InputStream input) throws IOException {
+    int value = 0;
+    for (int i = 0; i < 4; ++i) {
+      final int b = input.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      value = (value << 8) | b;
+    }
+    return value;
+  }
+
+  /**
+   * Read one non-negative integer of 7 bits per byte, the lowest bits first.
+   *
+   * @param input The stream to read.
+   * @return The integer.
+   * @throws IOException If the stream ends.
+   */
+  private static long readVarLong(final InputStream input) throws IOException {
+    long value = 0l;
+    for (int shift = 0; shift < 64; shift += 7) {
+      final int b = input.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      value |= (long) (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("variable-length integer is too long");
+  }
+
+  /**
+   * Write one non-negative integer of 7 bits per byte, the lowest bits first.
+   *
+   * @param output The stream to write.
+   * @param value The integer.
+   * @throws IOException If the stream cannot be written.
+   */
+  private static void writeVarLong(final OutputStream output, long value) throws IOException {
+    while ((value & ~0x7fl) != 0l) {
+      output.write((int) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    output.write((int) value);
+  }
+
+  /** Map a signed integer to a non-negative one, small magnitudes stay small. */
+  private static long encodeZigZag(final long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  /** Map the result of encodeZigZag back to the signed integer. */
+  private static long decodeZigZag(final long value) {
+    return (value >>> 1) ^ -(value & 1l);
+  }
+
+  /**
+   * Add the intervals in one archive, see Decoder.
+   *
+   * @param filename The filename of the archive.
+   * @param intervals The store to add to, the intervals should be later than the stored ones.
+   * @return Whether the archive is read.
+   */
+  public static boolean read(final String filename, final IntervalStore intervals) {
+    try (Decoder decoder = new Decoder(filename)) {
+      while (decoder.next()) {
+        intervals.add(decoder.getStartSecond(), decoder.getEndSecond());
+      }
+    } catch (Exception ex) {
+      assert 1 == 2 : ("error loading intervals from archive " + filename);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Write the intervals into one archive, the file is overwritten. The archive is compressed with
+   * gzip unless -Dptm.archive.gzip=false.
+   *
+   * @param filename The filename of the archive.
+   * @param intervals The intervals to write, ordered.
+   * @return Whether writing is successful.
+   */
+  public static boolean write(final String filename, final IntervalStore intervals) {
+    return write(filename, intervals, _is_gzip_default);
+  }
+
+  /**
+   * Write the intervals into one archive, the file is overwritten.
+   *
+   * @param filename The filename of the archive.
+   * @param intervals The intervals to write, ordered.
+   * @param is_gzip Whether the body is compressed with gzip.
+   * @return Whether writing is successful.
+   */
+  public static boolean write(
+      final String filename, final IntervalStore intervals, final boolean is_gzip) {
+    assert intervals.isOrdered() : "intervals to archive are not in order";
+    try (FileOutputStream file = new FileOutputStream(filename)) {
+      final BufferedOutputStream output_file = new BufferedOutputStream(file);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        output_file.write(_magic >>> shift);
+      }
+      output_file.write(_version);
+      output_file.write(is_gzip ? _flag_gzip : 0);
+      final GZIPOutputStream output_gzip = is_gzip ? new GZIPOutputStream(output_file) : null;
+      final OutputStream output =
+          is_gzip ? new BufferedOutputStream(output_gzip) : output_file;
+
+      final long base = intervals.isEmpty() ? 0l : intervals.getStartSecond(0);
+      writeVarLong(output, intervals.size());
+      writeVarLong(output, encodeZigZag(base));
+      long end = base;
+      for (int i = 0; i < intervals.size(); ++i) {
+        writeVarLong(output, intervals.getStartSecond(i) - end);
+        end = intervals.getEndSecond(i);
+        writeVarLong(output, end - intervals.getStartSecond(i));
+      }
+      output.flush();
+      if (output_gzip != null) {
+        output_gzip.finish();
+      }
+      output_file.flush();
+      file.getFD().sync();
+    } catch (Exception ex) {
+      assert 1 == 2 : ("error writing intervals to archive " + filename);
+      return false;
+    }
+    return true;
+  }
+}
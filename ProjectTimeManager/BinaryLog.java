@@ -0,0 +1,148 @@
+package ProjectTimeManager;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedList;
+import java.util.List;
+
+/// This class reads and writes the binary log, which stores the intervals as fixed-width records.
+public class BinaryLog {
+  /** The first bytes of a binary log, "PTMB". */
+  private static final int _magic = 0x50544d42;
+
+  /** The version of the record layout. */
+  private static final int _version = 1;
+
+  /** The number of bytes before the first record: magic and version. */
+  public static final int HEADER_SIZE = 8;
+
+  /** The number of bytes for one record: start and end time in epoch seconds. */
+  public static final int RECORD_SIZE = 16;
+
+  /**
+   * Read the intervals stored in the binary log with given filename. The file is mapped into
+   * memory, so that no text is parsed.
+   *
+   * @param filename The filename of the binary log.
+   * @return The intervals in the log, or null if the file cannot be read or is malformed.
+   */
+  public static IntervalStore read(final String filename) {
+    if (!new File(filename).canRead()) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size < HEADER_SIZE || (size - HEADER_SIZE) % RECORD_SIZE != 0) {
+        assert 1 == 2 : "binary log " + filename + " has wrong size";
+        return null;
+      }
+
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0l, size);
+      if (buffer.getInt() != _magic || buffer.getInt() != _version) {
+        assert 1 == 2 : "binary log " + filename + " has wrong header";
+        return null;
+      }
+
+      final int count = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+      IntervalStore intervals = new IntervalStore();
+      for (int i = 0; i < count; ++i) {
+        final long start = buffer.getLong();
+        final long end = buffer.getLong();
+        intervals.add(start, end);
+      }
+      return intervals;
+    } catch (Exception ex) {
+      assert 1 == 2 : ("error loading intervals from " + filename);
+      return null;
+    }
+  }
+
+  /**
+   * Write the intervals into the binary log with given filename, the file is replaced at once like
+   * in Utils.writeFile, thus a reader which maps the old file is not disturbed.
+   *
+   * @param filename The filename of the binary log.
+   * @param intervals The intervals to write.
+   * @return Whether writing is successful.
+   */
+  public static boolean write(final String filename, final IntervalStore intervals) {
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * intervals.size());
+    buffer.putInt(_magic);
+    buffer.putInt(_version);
+    for (int i = 0; i < intervals.size(); ++i) {
+      buffer.putLong(intervals.getStartSecond(i));
+      buffer.putLong(intervals.getEndSecond(i));
+    }
+    buffer.flip();
+
+    final File file = new File(filename).getAbsoluteFile();
+    File file_temp = null;
+    try {
+      file_temp = Utils.createTempFile(file);
+      try (FileChannel channel =
+          FileChannel.open(
+              file_temp.toPath(),
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
+        channel.force(false);
+      }
+      Utils.replaceFile(file_temp.toPath(), file.toPath());
+    } catch (Exception ex) {
+      if (file_temp != null) {
+        file_temp.delete();
+      }
+      assert 1 == 2 : ("error writing intervals to " + filename);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Convert the text log into binary log. The text log has whole seconds only, so the conversion
+   * is lossless.
+   *
+   * @param filename_text The filename of the text log to read.
+   * @param filename_binary The filename of the binary log to write.
+   * @return Whether the conversion is successful.
+   */
+  public static boolean convertTextToBinary(
+      final String filename_text, final String filename_binary) {
+    final List<String> contents = Utils.readFile(filename_text);
+    if (contents == null) {
+      return false;
+    }
+    IntervalStore intervals = new IntervalStore();
+    for (final String line : contents) {
+      intervals.add(IntervalCodec.parseStartSecond(line), IntervalCodec.parseEndSecond(line));
+    }
+    return write(filename_binary, intervals);
+  }
+
+  /**
+   * Convert the binary log into text log, which can be modified manually.
+   *
+   * @param filename_binary The filename of the binary log to read.
+   * @param filename_text The filename of the text log to write.
+   * @return Whether the conversion is successful.
+   */
+  public static boolean convertBinaryToText(
+      final String filename_binary, final String filename_text) {
+    final IntervalStore intervals = read(filename_binary);
+    if (intervals == null) {
+      return false;
+    }
+    List<String> contents = new LinkedList<String>();
+    for (int i = 0; i < intervals.size(); ++i) {
+      contents.add(intervals.format(i));
+    }
+    return Utils.writeFile(filename_text, contents);
+  }
+}
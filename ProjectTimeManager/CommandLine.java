@@ -0,0 +1,363 @@
+package ProjectTimeManager;
+
+import java.io.File;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+/// This class runs the commands given in the command line without GUI, it does not use AWT or Swing
+/// so that it starts fast, e.g. in scripts and prompt hooks.
+public class CommandLine {
+  /** Print the usage of the command line. */
+  private static void printUsage() {
+    System.out.println(
+        String.join(
+            System.lineSeparator(),
+            "usage: ptm [command] [options], the GUI starts without command",
+            "  start [--detach] [PROJECT]  start the project, this month if not given; the session",
+            "                              ends with ctrl-c, or with stop if detached",
+            "  clock-in [--detach]         start the project for this month",
+            "  stop [PROJECT]              end the unfinished session of the project now",
+            "  total [--from yyyy-MM-dd] [--to yyyy-MM-dd] [PROJECT ...]",
+            "                              total time of the projects, all if not given",
+            "  dates [PROJECT]             days with logged time, latest first",
+            "  projects [--date yyyy-MM-dd]",
+            "                              projects, with logged time on the day if given",
+            "  report PROJECT FILE         write the report in RTF, .config must be ready",
+            "  serve [--port N]            serve the projects as JSON on localhost until ctrl-c",
+            "  segment PROJECT             split the log of the project into one file per month",
+            "  archive [PROJECT ...]       compress the closed months of the projects, all if not",
+            "                              given; the projects are segmented first",
+            "  help                        show this usage",
+            "total, dates and projects read all directories in -Dptm.roots, separated by "
+                + File.pathSeparator
+                + ", and merge the projects by name"));
+  }
+
+  /** Print the usage and end the program with error. */
+  private static void exitWithUsage() {
+    printUsage();
+    System.exit(1);
+  }
+
+  /**
+   * Read the day given as value of one option, the usage is shown if it is missing or no day.
+   *
+   * @param args The options.
+   * @param index The index of the value in the options.
+   * @return The day from Posix epoch.
+   */
+  private static long parseDay(final List<String> args, final int index) {
+    if (index < args.size()) {
+      try {
+        return LocalDate.parse(args.get(index)).toEpochDay();
+      } catch (DateTimeParseException ex) {
+        System.out.println("day should be yyyy-MM-dd: " + args.get(index));
+      }
+    }
+    exitWithUsage();
+    return 0l;
+  }
+
+  /**
+   * Format the duration with hours which can exceed one day.
+   *
+   * @param millis The duration in millisecond.
+   * @return The duration as H:MM:SS.
+   */
+  private static String formatHours(final long millis) {
+    final long seconds = millis / 1000l;
+    return String.format("%d:%02d:%02d", seconds / 3600l, seconds / 60l % 60l, seconds % 60l);
+  }
+
+  /**
+   * Start one project, in this process until ctrl-c or detached.
+   *
+   * @param args The options and the project.
+   * @param project_name The project if none is given in the options.
+   */
+  private static void start(final List<String> args, final String project_name) {
+    final boolean is_detached = !args.isEmpty() && args.get(0).equals("--detach");
+    final List<String> names = args.subList(is_detached ? 1 : 0, args.size());
+    if (names.size() > 1) {
+      exitWithUsage();
+    }
+    final String name = names.isEmpty() ? project_name : names.get(0);
+
+    if (ProjectManager.isRunning(name)) {
+      System.out.println(
+          String.format(
+              ProjectManager.isSessionHeld(name)
+                  ? "project %s is running in another process, session %s, end it with stop first"
+                  : "project %s has an unfinished session %s, end it with stop first",
+              name,
+              ProjectManager.getPendingSessionTime(name)));
+      System.exit(1);
+    }
+    if (is_detached) {
+      ProjectManager project = new ProjectManager(name);
+      project.start();
+      project.detach();
+      System.out.println(String.format("project %s starts, end it with stop", name));
+    } else {
+      System.out.println(String.format("project %s starts, end it with ctrl-c", name));
+      ProjectManager.startProject(name);
+    }
+  }
+
+  /**
+   * End the unfinished session of one project.
+   *
+   * @param args The project, this month if not given.
+   */
+  private static void stop(final List<String> args) {
+    if (args.size() > 1) {
+      exitWithUsage();
+    }
+    final String name = args.isEmpty() ? TimeLogManager.getCurrnetMonthId() : args.get(0);
+    if (!ProjectManager.stopProject(name)) {
+      System.out.println(String.format("project %s has no unfinished session", name));
+      System.exit(1);
+    }
+    System.out.println(String.format("project %s ends", name));
+  }
+
+  /**
+   * Print the total time of the projects between the days.
+   *
+   * @param args The options and the projects.
+   */
+  private static void total(final List<String> args) {
+    long day_from = Long.MIN_VALUE / 2l;
+    long day_to = Long.MAX_VALUE / 2l;
+    ArrayList<String> names = new ArrayList<>();
+    for (int i = 0; i < args.size(); ++i) {
+      if (args.get(i).equals("--from")) {
+        day_from = parseDay(args, ++i);
+      } else if (args.get(i).equals("--to")) {
+        // the last day is included
+        day_to = parseDay(args, ++i) + 1l;
+      } else if (args.get(i).startsWith("--")) {
+        exitWithUsage();
+      } else {
+        names.add(args.get(i));
+      }
+    }
+    final ShardedStore store = ShardedStore.fromProperties();
+    if (names.isEmpty()) {
+      names = store.getListProject();
+    }
+    for (final String name : names) {
+      if (!store.isProjectAvailable(name)) {
+        System.out.println(String.format("project %s not found", name));
+        System.exit(1);
+      }
+    }
+
+    final TreeMap<String, Long> totals = store.getTotalTimeMs(day_from, day_to);
+    long total_ms = 0l;
+    for (final String name : names) {
+      final long project_ms = totals.getOrDefault(name, 0l);
+      total_ms += project_ms;
+      System.out.println(name + " " + formatHours(project_ms));
+    }
+    if (names.size() > 1) {
+      System.out.println("total " + formatHours(total_ms));
+    }
+  }
+
+  /**
+   * Print the days with logged time.
+   *
+   * @param args The project, all projects if not given.
+   */
+  private static void dates(final List<String> args) {
+    if (args.size() > 1) {
+      exitWithUsage();
+    }
+    final ShardedStore store = ShardedStore.fromProperties();
+    if (args.isEmpty()) {
+      for (final Instant date : store.getListDates()) {
+        System.out.println(date.toString().split("T")[0]);
+      }
+      return;
+    }
+    final ArrayList<Long> days = store.getDays(args.get(0));
+    for (int i = days.size() - 1; i >= 0; --i) {
+      System.out.println(LocalDate.ofEpochDay(days.get(i)).toString());
+    }
+  }
+
+  /**
+   * Print the projects.
+   *
+   * @param args The day which the projects should have logged time on, optional.
+   */
+  private static void projects(final List<String> args) {
+    final ShardedStore store = ShardedStore.fromProperties();
+    ArrayList<String> names = null;
+    if (args.isEmpty()) {
+      names = store.getListProject();
+    } else if (args.size() == 2 && args.get(0).equals("--date")) {
+      names =
+          store.getListProjectWithData(
+              Instant.ofEpochSecond(parseDay(args, 1) * TimeLogManager.SECONDS_PER_DAY));
+    } else {
+      exitWithUsage();
+    }
+    for (final String name : names) {
+      System.out.println(name);
+    }
+  }
+
+  /**
+   * Write the report of one project.
+   *
+   * @param args The project and the file for the report.
+   */
+  private static void report(final List<String> args) {
+    if (args.size() != 2) {
+      exitWithUsage();
+    }
+    if (!ProjectManager.isProjectAvailable(args.get(0))) {
+      System.out.println(String.format("project %s not found", args.get(0)));
+      System.exit(1);
+    }
+    if (!ProjectReporter.isConfigReady()) {
+      System.out.println("the configuration for reporter in .config is not ready, set it in GUI");
+      System.exit(1);
+    }
+    new ProjectReporter(args.get(0)).output(args.get(1));
+    System.out.println("report written to " + new File(args.get(1)).getAbsolutePath());
+  }
+
+  /**
+   * Split the log of one project into segments by month.
+   *
+   * @param args The project.
+   */
+  private static void segment(final List<String> args) {
+    if (args.size() != 1) {
+      exitWithUsage();
+    }
+    final String name = args.get(0);
+    if (ProjectManager.isRunning(name)) {
+      System.out.println(String.format("project %s is running, end it with stop first", name));
+      System.exit(1);
+    }
+    if (!ProjectManager.createSegmentedLog(name)) {
+      System.out.println(String.format("project %s has no log to segment", name));
+      System.exit(1);
+    }
+    System.out.println(String.format("project %s is segmented by month", name));
+  }
+
+  /**
+   * Archive the closed months of the projects.
+   *
+   * @param args The projects, all projects if not given.
+   */
+  private static void archive(final List<String> args) {
+    final List<String> names = args.isEmpty() ? ProjectManager.getListProject() : args;
+    for (final String name : names) {
+      if (ProjectManager.isRunning(name)) {
+        System.out.println(String.format("project %s is running, skipped", name));
+        continue;
+      }
+      final int count = ProjectManager.archiveProject(name);
+      if (count < 0) {
+        System.out.println(String.format("project %s not found", name));
+        System.exit(1);
+      }
+      System.out.println(String.format("project %s: %d months archived", name, count));
+    }
+  }
+
+  /**
+   * Serve the projects on localhost until the program is ended.
+   *
+   * @param args The port, optional.
+   */
+  private static void serve(final List<String> args) {
+    int port = QueryServer.DEFAULT_PORT;
+    if (args.size() == 2 && args.get(0).equals("--port")) {
+      try {
+        port = Integer.parseInt(args.get(1));
+      } catch (NumberFormatException ex) {
+        port = -1;
+      }
+      if (port < 0 || port > 65535) {
+        System.out.println("port should be between 0 and 65535: " + args.get(1));
+        exitWithUsage();
+      }
+    } else if (!args.isEmpty()) {
+      exitWithUsage();
+    }
+    try {
+      QueryServer server = new QueryServer(port);
+      server.start();
+      System.out.println(
+          String.format("serving projects on http://localhost:%d/projects", server.getPort()));
+    } catch (Exception ex) {
+      System.out.println("cannot serve on port " + port + ": " + ex.getMessage());
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Run one command.
+   *
+   * @param args The command and its options.
+   */
+  public static void main(String[] args) {
+    if (args.length == 0) {
+      exitWithUsage();
+    }
+    final List<String> options = Arrays.asList(args).subList(1, args.length);
+    switch (args[0]) {
+      case "start":
+        start(options, TimeLogManager.getCurrnetMonthId());
+        break;
+      case "clock-in":
+        if (options.size() > 1 || (options.size() == 1 && !options.get(0).equals("--detach"))) {
+          exitWithUsage();
+        }
+        start(options, TimeLogManager.getCurrnetMonthId());
+        break;
+      case "stop":
+        stop(options);
+        break;
+      case "total":
+        total(options);
+        break;
+      case "dates":
+        dates(options);
+        break;
+      case "projects":
+        projects(options);
+        break;
+      case "report":
+        report(options);
+        break;
+      case "serve":
+        serve(options);
+        break;
+      case "segment":
+        segment(options);
+        break;
+      case "archive":
+        archive(options);
+        break;
+      case "help":
+      case "--help":
+        printUsage();
+        break;
+      default:
+        exitWithUsage();
+    }
+  }
+}
@@ -0,0 +1,290 @@
+package ProjectTimeManager;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/// This class keeps the days with data and their total time for all projects, so that the logs need
+/// not be parsed. It is saved in the directory for data, thus it also spares the parsing in the
+/// next run of the program. It is loaded, updated and saved while holding its lock, thus threads
+/// and processes updating one index at once do not lose the updates of each other.
+public class DayIndex {
+  /** The name of the index file in the directory for data. */
+  private static final String _filename = ".day_index";
+
+  /** The name under which the index is locked like a project, see ProjectLock. */
+  private static final String _name_lock = "day_index";
+
+  /** The separator between the fields in one line of the index file. */
+  private static final String _sep = "\t";
+
+  /** The days of one project and the state of the log when the days were collected. */
+  private static class Entry {
+    /** Size and modification time of the logs, see ProjectManager.getLogSignature. */
+    private final String _signature;
+
+    /** The days from Posix epoch with data, ascending. */
+    private final long[] _days;
+
+    /** The total time in millisecond of the intervals starting on each day. */
+    private final long[] _totals_ms;
+
+    private Entry(final String signature, final long[] days, final long[] totals_ms) {
+      _signature = signature;
+      _days = days;
+      _totals_ms = totals_ms;
+    }
+  }
+
+  /** The directory for data which is indexed. */
+  private final String _directory;
+
+  /** The path of the index file. */
+  private final String _path;
+
+  /** The entries per project. */
+  private final HashMap<String, Entry> _entries = new HashMap<>();
+
+  /** Whether the entries are changed since loading. */
+  private boolean _is_changed = false;
+
+  /**
+   * Parse one line of the index file.
+   *
+   * @param line The line to parse.
+   * @return Whether the line is valid.
+   */
+  private boolean parseLine(final String line) {
+    final String[] slices = line.split(_sep, -1);
+    if (slices.length != 3) {
+      return false;
+    }
+    final String[] pairs = slices[2].isEmpty() ? new String[0] : slices[2].split(",");
+    long[] days = new long[pairs.length];
+    long[] totals_ms = new long[pairs.length];
+    try {
+      for (int i = 0; i < pairs.length; ++i) {
+        final int pos = pairs[i].indexOf(':');
+        if (pos < 0) {
+          return false;
+        }
+        days[i] = Long.parseLong(pairs[i].substring(0, pos));
+        totals_ms[i] = Long.parseLong(pairs[i].substring(pos + 1));
+      }
+    } catch (NumberFormatException ex) {
+      return false;
+    }
+    _entries.put(slices[0], new Entry(slices[1], days, totals_ms));
+    return true;
+  }
+
+  /**
+   * Load the index in the given directory, an empty index is created if it is missing or broken.
+   * The caller holds the lock of the index.
+   *
+   * @param directory The directory for data.
+   */
+  private DayIndex(final String directory) {
+    _directory = directory;
+    _path = Paths.get(directory, _filename).toString();
+
+    final List<String> contents = Utils.readFile(_path);
+    if (contents != null) {
+      for (final String line : contents) {
+        if (!parseLine(line)) {
+          _entries.clear();
+          _is_changed = true;
+          break;
+        }
+      }
+    }
+  }
+
+  /**
+   * Load the index in the given directory and bring it up to date with the given projects. Projects
+   * whose logs changed since they were indexed are read again, the entries of other projects are
+   * reused.
+   *
+   * @param directory The directory for data.
+   * @param project_names The names of all available projects.
+   * @return The up-to-date index.
+   */
+  public static DayIndex update(final String directory, final List<String> project_names) {
+    final ProjectLock lock = ProjectLock.lockExclusive(directory, _name_lock);
+    try {
+      DayIndex index = new DayIndex(directory);
+      index.refresh(project_names);
+      return index;
+    } finally {
+      lock.close();
+    }
+  }
+
+  /**
+   * Set the days of one project in the index in the given directory.
+   *
+   * @param directory The directory for data.
+   * @param project_name The name of the project.
+   * @param signature The state of the logs which contain the days.
+   * @param project The loaded project.
+   */
+  public static void put(
+      final String directory,
+      final String project_name,
+      final String signature,
+      final ProjectManager project) {
+    final ProjectLock lock = ProjectLock.lockExclusive(directory, _name_lock);
+    try {
+      DayIndex index = new DayIndex(directory);
+      index.set(project_name, signature, project);
+      index.save();
+    } finally {
+      lock.close();
+    }
+  }
+
+  /**
+   * Set the days of one project and their total time.
+   *
+   * @param project_name The name of the project.
+   * @param signature The state of the logs which contain the days.
+   * @param project The loaded project.
+   */
+  private void set(final String project_name, final String signature, final ProjectManager project) {
+    final long[] days = project.getDays().stream().mapToLong(l -> l).toArray();
+    long[] totals_ms = new long[days.length];
+    for (int i = 0; i < days.length; ++i) {
+      totals_ms[i] = project.getTotalTimeMsBetweenDays(days[i], days[i] + 1l);
+    }
+    _entries.put(project_name, new Entry(signature, days, totals_ms));
+    _is_changed = true;
+  }
+
+  /**
+   * Bring the index up to date with the given projects and save it.
+   *
+   * @param project_names The names of all available projects.
+   */
+  private void refresh(final List<String> project_names) {
+    if (_entries.keySet().retainAll(project_names)) {
+      _is_changed = true;
+    }
+    ArrayList<String> project_names_changed = new ArrayList<>();
+    ArrayList<String> signatures = new ArrayList<>();
+    for (final String project_name : project_names) {
+      final String signature = ProjectManager.getLogSignature(_directory, project_name);
+      final Entry entry = _entries.get(project_name);
+      if (entry == null || !entry._signature.equals(signature)) {
+        project_names_changed.add(project_name);
+        signatures.add(signature);
+      }
+    }
+
+    final ArrayList<ProjectManager> projects =
+        ProjectCache.getAll(_directory, project_names_changed);
+    for (int i = 0; i < projects.size(); ++i) {
+      set(project_names_changed.get(i), signatures.get(i), projects.get(i));
+    }
+    save();
+  }
+
+  /** Write the index to file if it is changed. */
+  private void save() {
+    if (!_is_changed) {
+      return;
+    }
+    List<String> contents = new LinkedList<String>();
+    for (final Map.Entry<String, Entry> entry : _entries.entrySet()) {
+      final Entry value = entry.getValue();
+      StringBuilder days = new StringBuilder();
+      for (int i = 0; i < value._days.length; ++i) {
+        if (days.length() > 0) {
+          days.append(',');
+        }
+        days.append(value._days[i]).append(':').append(value._totals_ms[i]);
+      }
+      contents.add(entry.getKey() + _sep + value._signature + _sep + days);
+    }
+    if (Utils.writeFile(_path, contents)) {
+      _is_changed = false;
+    }
+  }
+
+  /**
+   * Get all days with data in any project, descending.
+   *
+   * @return The days from Posix epoch.
+   */
+  public ArrayList<Long> getDays() {
+    TreeSet<Long> days = new TreeSet<>(Collections.reverseOrder());
+    for (final Entry entry : _entries.values()) {
+      for (final long day : entry._days) {
+        days.add(day);
+      }
+    }
+    return new ArrayList<>(days);
+  }
+
+  /**
+   * Get the days with data of one project.
+   *
+   * @param project_name The name of the project.
+   * @return The days from Posix epoch, ascending; empty if the project is not indexed.
+   */
+  public ArrayList<Long> getDays(final String project_name) {
+    ArrayList<Long> days = new ArrayList<>();
+    final Entry entry = _entries.get(project_name);
+    if (entry != null) {
+      for (final long day : entry._days) {
+        days.add(day);
+      }
+    }
+    return days;
+  }
+
+  /**
+   * Get the total time of each project between the days.
+   *
+   * @param day_from The first day from Posix epoch to include.
+   * @param day_to The first day from Posix epoch to exclude.
+   * @return The total time in millisecond per project, sorted by name.
+   */
+  public TreeMap<String, Long> getTotalsMs(final long day_from, final long day_to) {
+    TreeMap<String, Long> totals = new TreeMap<>();
+    for (final Map.Entry<String, Entry> entry : _entries.entrySet()) {
+      final Entry value = entry.getValue();
+      long total_ms = 0l;
+      for (int i = 0; i < value._days.length; ++i) {
+        if (value._days[i] >= day_from && value._days[i] < day_to) {
+          total_ms += value._totals_ms[i];
+        }
+      }
+      totals.put(entry.getKey(), total_ms);
+    }
+    return totals;
+  }
+
+  /**
+   * Get the projects with data on the given day, sorted by name.
+   *
+   * @param day The day from Posix epoch.
+   * @return The names of the projects.
+   */
+  public ArrayList<String> getProjects(final long day) {
+    ArrayList<String> project_names = new ArrayList<>();
+    for (final Map.Entry<String, Entry> entry : _entries.entrySet()) {
+      if (Arrays.binarySearch(entry.getValue()._days, day) >= 0) {
+        project_names.add(entry.getKey());
+      }
+    }
+    Collections.sort(project_names);
+    return project_names;
+  }
+}
@@ -0,0 +1,92 @@
+package ProjectTimeManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.AbstractListModel;
+
+/// This class holds the items of one list in the GUI and the ones matching the filter typed by the
+/// user, only indices of the matching items are kept so that large lists stay cheap.
+public class FilteredListModel extends AbstractListModel<String> {
+  private static final long serialVersionUID = 1L;
+
+  /** All items, in the order to show. */
+  private List<String> _items = new ArrayList<>();
+
+  /** The indices in all items of the matching items. */
+  private int[] _indices = new int[0];
+
+  /** The number of matching items. */
+  private int _size = 0;
+
+  /** The current filter in lower case, empty to match all. */
+  private String _filter = "";
+
+  /**
+   * Replace all items, the current filter is kept.
+   *
+   * @param items The new items.
+   */
+  public void setItems(final List<String> items) {
+    _items = items;
+    _indices = new int[items.size()];
+    _size = 0;
+    for (int i = 0; i < items.size(); ++i) {
+      if (matches(i, _filter)) {
+        _indices[_size++] = i;
+      }
+    }
+    fireContentsChanged(this, 0, Math.max(0, items.size() - 1));
+  }
+
+  /**
+   * Checks whether the item contains the filter, case is ignored.
+   *
+   * @param index The index in all items.
+   * @param filter The filter in lower case.
+   * @return Whether the item matches.
+   */
+  private boolean matches(final int index, final String filter) {
+    return filter.isEmpty() || _items.get(index).toLowerCase().contains(filter);
+  }
+
+  /**
+   * Show only the items containing the text. If the text extends the current filter, only the
+   * items matching now are checked again.
+   *
+   * @param text The text to filter with.
+   */
+  public void setFilter(final String text) {
+    final String filter = text.toLowerCase();
+    if (filter.equals(_filter)) {
+      return;
+    }
+    final boolean is_narrower = filter.contains(_filter);
+    final int size_before = _size;
+    if (!is_narrower) {
+      _indices = new int[_items.size()];
+      for (int i = 0; i < _indices.length; ++i) {
+        _indices[i] = i;
+      }
+      _size = _indices.length;
+    }
+    int size = 0;
+    for (int i = 0; i < _size; ++i) {
+      if (matches(_indices[i], filter)) {
+        _indices[size++] = _indices[i];
+      }
+    }
+    _size = size;
+    _filter = filter;
+    fireContentsChanged(this, 0, Math.max(0, Math.max(size_before, _size) - 1));
+  }
+
+  @Override
+  public int getSize() {
+    return _size;
+  }
+
+  @Override
+  public String getElementAt(final int index) {
+    return _items.get(_indices[index]);
+  }
+}
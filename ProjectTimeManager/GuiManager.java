@@ -1,18 +1,29 @@
 package ProjectTimeManager;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 
 public class GuiManager {
@@ -40,6 +51,81 @@ public class GuiManager {
   /** The size of one unit, button or text field. */
   private static final Dimension _dimension = new Dimension(_width_per_unit, _height_per_unit);
 
+  /**
+   * The time in millisecond from epoch when the program was launched, set with
+   * -Dptm.startup.probe for the startup benchmark; then the program exits at the first frame.
+   */
+  private static final String _time_launch_probe = System.getProperty("ptm.startup.probe");
+
+  /** The text shown in place of data which is still loading. */
+  private static final String _text_loading = "...";
+
+  /** The workers loading data for the current GUI, they are cancelled when the GUI is closed. */
+  private final ArrayList<SwingWorker<?, ?>> _workers = new ArrayList<>();
+
+  /**
+   * Shows one project of a list with its total time. The total is computed in the background when
+   * the row is shown the first time, so only the visible rows are loaded.
+   */
+  private class ProjectRenderer extends DefaultListCellRenderer {
+    private static final long serialVersionUID = 1L;
+
+    /** The days to summarize, null for all. */
+    private final ArrayList<Instant> _dates;
+
+    /** The formatted total time of the loaded projects. */
+    private final HashMap<String, String> _totals = new HashMap<>();
+
+    /** The projects being loaded. */
+    private final HashSet<String> _pending = new HashSet<>();
+
+    private ProjectRenderer(final ArrayList<Instant> dates) {
+      _dates = dates;
+    }
+
+    @Override
+    public Component getListCellRendererComponent(
+        final JList<?> list,
+        final Object value,
+        final int index,
+        final boolean is_selected,
+        final boolean has_focus) {
+      final String project_name = (String) value;
+      if (project_name.equals(_text_loading)) {
+        return super.getListCellRendererComponent(list, value, index, is_selected, has_focus);
+      }
+      final String total = _totals.get(project_name);
+      if (total == null && _pending.add(project_name)) {
+        execute(
+            new SwingWorker<String, Void>() {
+              @Override
+              protected String doInBackground() {
+                return Interval.formatDuration(
+                    Duration.ofMillis(ProjectCache.get(project_name).getTotalTimeMs(_dates)));
+              }
+
+              @Override
+              protected void done() {
+                if (checkWorker(this, "error loading the project " + project_name)) {
+                  try {
+                    _totals.put(project_name, get());
+                  } catch (Exception ex) {
+                    return;
+                  }
+                  list.repaint();
+                }
+              }
+            });
+      }
+      return super.getListCellRendererComponent(
+          list,
+          project_name + " " + (total != null ? total : _text_loading),
+          index,
+          is_selected,
+          has_focus);
+    }
+  }
+
   /**
    * Initialize button with text and predefined looks.
    *
@@ -55,8 +141,57 @@ public class GuiManager {
     return button;
   }
 
-  /** Close the current GUI session. */
+  /**
+   * Initialize label with text and predefined looks, to show in place of data being loaded.
+   *
+   * @param text The text to show.
+   */
+  private static JLabel initPlaceholder(final String text) {
+    JLabel label = new JLabel(text);
+    label.setPreferredSize(_dimension);
+    label.setHorizontalAlignment(JLabel.CENTER);
+    return label;
+  }
+
+  /**
+   * Run the worker for the current GUI in the background.
+   *
+   * @param worker The worker to run.
+   */
+  private void execute(final SwingWorker<?, ?> worker) {
+    _workers.add(worker);
+    worker.execute();
+  }
+
+  /**
+   * Checks whether one finished worker failed.
+   *
+   * @param worker The finished worker.
+   * @param message The message if it failed.
+   * @return Whether the worker finished without error and was not cancelled.
+   */
+  private boolean checkWorker(final SwingWorker<?, ?> worker, final String message) {
+    _workers.remove(worker);
+    if (worker.isCancelled()) {
+      return false;
+    }
+    try {
+      worker.get();
+    } catch (Exception ex) {
+      assert 1 == 2 : message;
+      return false;
+    }
+    return true;
+  }
+
+  /** Close the current GUI session, the data loaded for it is not needed any more. */
   private void destroyGui() {
+    // a cancelled worker is done at once and removes itself, so iterate over a copy
+    for (final SwingWorker<?, ?> worker : new ArrayList<>(_workers)) {
+      worker.cancel(true);
+    }
+    _workers.clear();
+
     if (_gui != null) {
       _gui.setVisible(false);
       _gui.dispose();
@@ -101,24 +236,155 @@ public class GuiManager {
     return panel;
   }
 
+  /**
+   * Clean and initialize GUI with given title and one list of text items, which is filtered by the
+   * text typed above it. Only the visible rows are rendered, so long lists stay fast.
+   *
+   * @param title Title of the window.
+   * @param model The items to show.
+   * @param on_open Action to take when one item is clicked or entered.
+   * @return The list, to set the renderer.
+   */
+  private JList<String> initGuiWithList(
+      final String title, final FilteredListModel model, final Consumer<String> on_open) {
+    destroyGui();
+
+    _gui = new JFrame(title);
+    _gui.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+    final JTextField field_filter = new JTextField();
+    field_filter.setPreferredSize(new Dimension(_width_per_unit, _height_per_unit / 3));
+    field_filter.setHorizontalAlignment(JTextField.CENTER);
+    field_filter.setToolTipText("type to filter");
+
+    final JList<String> list = new JList<>(model);
+    // fixed size of cells, so that the list does not render all items for the layout
+    list.setFixedCellWidth(_width_per_unit);
+    list.setFixedCellHeight(_height_per_unit / 3);
+    list.setBackground(_colour_background);
+    list.setForeground(_colour_foreground);
+    list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+    ((DefaultListCellRenderer) list.getCellRenderer())
+        .setHorizontalAlignment(DefaultListCellRenderer.CENTER);
+    list.addMouseListener(
+        new MouseAdapter() {
+          @Override
+          public void mousePressed(MouseEvent e) {
+            if (SwingUtilities.isRightMouseButton(e)) {
+              destroyGui();
+              mainMenu();
+              return;
+            }
+            final int index = list.locationToIndex(e.getPoint());
+            if (index >= 0 && list.getCellBounds(index, index).contains(e.getPoint())) {
+              on_open.accept(model.getElementAt(index));
+            }
+          }
+        });
+
+    field_filter.getDocument()
+        .addDocumentListener(
+            new DocumentListener() {
+              public void insertUpdate(DocumentEvent e) {
+                model.setFilter(field_filter.getText());
+              }
+
+              public void removeUpdate(DocumentEvent e) {
+                model.setFilter(field_filter.getText());
+              }
+
+              public void changedUpdate(DocumentEvent e) {
+                model.setFilter(field_filter.getText());
+              }
+            });
+    field_filter.addActionListener(
+        new ActionListener() {
+          @Override
+          public void actionPerformed(ActionEvent e) {
+            if (model.getSize() > 0) {
+              on_open.accept(model.getElementAt(Math.max(0, list.getSelectedIndex())));
+            }
+          }
+        });
+
+    JScrollPane scrollable = new JScrollPane(list);
+    scrollable.setPreferredSize(
+        new Dimension(
+            _width_per_unit + _size_overhead * 2, _height_per_unit * 4 + _size_overhead * 3));
+
+    JPanel panel = new JPanel(new BorderLayout());
+    panel.setBackground(_colour_boundary);
+    panel.add(field_filter, BorderLayout.NORTH);
+    panel.add(scrollable, BorderLayout.CENTER);
+    _gui.add(panel);
+
+    return list;
+  }
+
+  /**
+   * Fill the list with the items loaded in the background.
+   *
+   * @param model The list to fill.
+   * @param source Gives the items.
+   */
+  private void loadItems(final FilteredListModel model, final Callable<List<String>> source) {
+    model.setItems(Arrays.asList(_text_loading));
+    execute(
+        new SwingWorker<List<String>, Void>() {
+          @Override
+          protected List<String> doInBackground() throws Exception {
+            return source.call();
+          }
+
+          @Override
+          protected void done() {
+            if (checkWorker(this, "error loading the list")) {
+              try {
+                model.setItems(get());
+              } catch (Exception ex) {
+                return;
+              }
+            }
+          }
+        });
+  }
+
   /** Show the GUI. */
   private void prepareGui() {
+    if (_time_launch_probe != null) {
+      _gui.addWindowListener(
+          new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+              // the events queued now include painting the frame
+              SwingUtilities.invokeLater(
+                  () -> {
+                    System.out.println(
+                        String.format(
+                            "first frame after %d ms",
+                            System.currentTimeMillis() - Long.parseLong(_time_launch_probe)));
+                    System.exit(0);
+                  });
+            }
+          });
+    }
     _gui.pack();
     _gui.setVisible(true);
   }
 
   /** Show the list of all possible projects. */
   private void showProjectList() {
-    showProjectList(ProjectManager.getListProject(), null);
+    showProjectList(() -> ProjectManager.getListProject(), null);
   }
 
   /**
-   * Show the given projects.
+   * Show the given projects, they are loaded in the background.
    *
-   * @param project_names Names of the given projects.
+   * @param project_names Gives the names of the projects.
+   * @param dates The days to summarize, null for all.
    */
   private void showProjectList(
-      final ArrayList<String> project_names, final ArrayList<Instant> dates) {
+      final Callable<List<String>> project_names, final ArrayList<Instant> dates) {
     final String title_date =
         ((dates == null || dates.isEmpty())
             ? "-"
@@ -127,25 +393,19 @@ public class GuiManager {
                 .map(text -> text.substring(2, text.indexOf('T')))
                 .reduce("", (s, t) -> (" " + s + t))));
 
-    JPanel panel = initGuiWithPanel("List of projects" + title_date);
-
-    for (final String project_name : project_names) {
-      final String text =
-          project_name
-              + " "
-              + Interval.formatDuration(
-                  Duration.ofMillis(new ProjectManager(project_name).getTotalTimeMs(dates)));
-      final JButton button =
-          initButton(
-              text,
-              new ActionListener() {
-                public void actionPerformed(ActionEvent e) {
-                  showProject(project_name, dates);
-                }
-              });
-
-      panel.add(button);
-    }
+    FilteredListModel model = new FilteredListModel();
+    final ProjectRenderer renderer = new ProjectRenderer(dates);
+    renderer.setHorizontalAlignment(ProjectRenderer.CENTER);
+    initGuiWithList(
+            "List of projects" + title_date,
+            model,
+            project_name -> {
+              if (!project_name.equals(_text_loading)) {
+                showProject(project_name, dates);
+              }
+            })
+        .setCellRenderer(renderer);
+    loadItems(model, project_names);
 
     prepareGui();
   }
@@ -183,24 +443,126 @@ public class GuiManager {
               }));
     }
 
-    final String text = new ProjectManager(project_name).getProjectSummary(preferred_dates);
-    JTextArea label = new JTextArea(text);
-
-    final int num_line =
-        "\n\r"
-            .chars()
-            .map(end -> text.chars().map(ch -> (ch == end ? 1 : 0)).sum())
-            .max()
-            .getAsInt();
-    label.setPreferredSize(new Dimension(_width_per_unit, _height_per_unit * num_line / 6));
+    JTextArea label = new JTextArea(_text_loading);
     // center alignment not working
     // label.setAlignmentY(JTextArea.CENTER_ALIGNMENT);
     // label.setAlignmentX(JTextArea.CENTER_ALIGNMENT);
     panel.add(label);
 
+    final ProjectSummaryPager pager =
+        new ProjectSummaryPager(project_name, preferred_dates, panel, label);
+    pager._button_more =
+        initButton(
+            "MORE",
+            new ActionListener() {
+              public void actionPerformed(ActionEvent e) {
+                pager.loadNextPage();
+              }
+            });
+    pager.loadNextPage();
+
     prepareGui();
   }
 
+  /**
+   * Shows the summary of one project page by page, each page is loaded in the background when
+   * it is asked for, so that projects with many days open quickly.
+   */
+  private class ProjectSummaryPager {
+    /** The name of the project. */
+    private final String _project_name;
+
+    /** The days to summarize, null for all days of this project. */
+    private final ArrayList<Instant> _preferred_dates;
+
+    /** The panel showing the summary. */
+    private final JPanel _panel;
+
+    /** The text area for the summary. */
+    private final JTextArea _label;
+
+    /** The button to load the next page, shown when there are more pages. */
+    private JButton _button_more = null;
+
+    /** The days with intervals to summarize, known after the first page is loaded. */
+    private ArrayList<Long> _days = null;
+
+    /** The number of loaded pages. */
+    private int _count_page = 0;
+
+    /** The loaded text. */
+    private final StringBuilder _text = new StringBuilder();
+
+    private ProjectSummaryPager(
+        final String project_name,
+        final ArrayList<Instant> preferred_dates,
+        final JPanel panel,
+        final JTextArea label) {
+      _project_name = project_name;
+      _preferred_dates = preferred_dates;
+      _panel = panel;
+      _label = label;
+    }
+
+    /** Load the next page in the background and append it to the shown summary. */
+    private void loadNextPage() {
+      _panel.remove(_button_more);
+      execute(
+          new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() {
+              final ProjectManager project = ProjectCache.get(_project_name);
+              if (_days == null) {
+                _days = project.getSummaryDays(_preferred_dates);
+              }
+              return project.getSummaryPage(_days, _count_page);
+            }
+
+            @Override
+            protected void done() {
+              if (!checkWorker(this, "error loading the project " + _project_name)) {
+                return;
+              }
+              try {
+                _text.append(get());
+              } catch (Exception ex) {
+                return;
+              }
+              ++_count_page;
+              showText();
+            }
+          });
+    }
+
+    /** Show the loaded text and the button for the next page if there is any. */
+    private void showText() {
+      final String text = _text.toString();
+      final int num_line =
+          "\n\r"
+              .chars()
+              .map(end -> text.chars().map(ch -> (ch == end ? 1 : 0)).sum())
+              .max()
+              .getAsInt();
+      _label.setText(text);
+      _label.setPreferredSize(new Dimension(_width_per_unit, _height_per_unit * num_line / 6));
+
+      final boolean has_more = _count_page < ProjectManager.getSummaryPageCount(_days);
+      if (has_more) {
+        _panel.add(_button_more);
+      }
+
+      // the panel grows with the text, so that it can be scrolled
+      int height = _size_overhead;
+      for (final Component component : _panel.getComponents()) {
+        height += component.getPreferredSize().height + _size_overhead;
+      }
+      _panel.setPreferredSize(
+          new Dimension(_width_per_unit, Math.max(_height_per_unit * 4, height)));
+      _panel.revalidate();
+      _panel.repaint();
+    }
+  }
+
   private void generateReport(final String project_name) {
     final String format = "rtf";
     final String ext = "." + format;
@@ -213,7 +575,26 @@ public class GuiManager {
       filename += ext;
     }
 
-    new ProjectReporter(project_name).output(filename);
+    final String filename_report = filename;
+    JPanel panel = initGuiWithPanel("Generating report");
+    panel.add(initPlaceholder(_text_loading));
+    prepareGui();
+
+    execute(
+        new SwingWorker<Void, Void>() {
+          @Override
+          protected Void doInBackground() {
+            new ProjectReporter(project_name).output(filename_report);
+            return null;
+          }
+
+          @Override
+          protected void done() {
+            if (checkWorker(this, "error generating the report " + filename_report)) {
+              destroyGui();
+            }
+          }
+        });
   }
 
   private void generateReportAfterConfig(final String project_name) {
@@ -248,8 +629,6 @@ public class GuiManager {
                 ProjectReporter.saveConfigItems(config);
 
                 generateReport(project_name);
-
-                destroyGui();
               }
             }));
 
@@ -257,7 +636,12 @@ public class GuiManager {
   }
 
   private void checkAndStartProject(final String project_name) {
-    if (new ProjectManager(project_name).isRunning()) {
+    if (ProjectManager.isSessionHeld(project_name)) {
+      // the session is alive in another process, it must not be deleted or finished here
+      JPanel panel = initGuiWithPanel("Project " + project_name + " is running");
+      panel.add(initPlaceholder("running in another process, end it there or with stop"));
+      prepareGui();
+    } else if (ProjectManager.isRunning(project_name)) {
       final JButton button_delete_start =
           initButton(
               "DELETE && START",
@@ -332,34 +716,31 @@ public class GuiManager {
     prepareGui();
   }
 
-  /** Create the GUI for selecting the date to show. */
-  private void startDateMenu(ArrayList<Instant> dates) {
-    if (dates == null) {
-      dates = ProjectManager.getListDates();
-    }
-
-    JPanel panel = initGuiWithPanel("Choose date to inquire");
-
-    for (final Instant date : dates) {
-      final String text_date = date.toString().split("T")[0];
-      final JButton button =
-          initButton(
-              text_date,
-              new ActionListener() {
-                public void actionPerformed(ActionEvent e) {
-                  final Instant date =
-                      Instant.ofEpochSecond(
-                          TimeLogManager.getSecondStartOfDay(
-                              Interval.parseDateTime(text_date + " 00:00:00")));
-
-                  showProjectList(
-                      ProjectManager.getListProjectWithData(date),
-                      new ArrayList<>(Arrays.asList(new Instant[] {date})));
-                }
-              });
-
-      panel.add(button);
-    }
+  /** Create the GUI for selecting the date to show, the dates are loaded in the background. */
+  private void startDateMenu() {
+    FilteredListModel model = new FilteredListModel();
+    initGuiWithList(
+        "Choose date to inquire",
+        model,
+        text_date -> {
+          if (text_date.equals(_text_loading)) {
+            return;
+          }
+          final Instant date =
+              Instant.ofEpochSecond(
+                  TimeLogManager.getSecondStartOfDay(
+                      Interval.parseDateTime(text_date + " 00:00:00")));
+
+          showProjectList(
+              () -> ProjectManager.getListProjectWithData(date),
+              new ArrayList<>(Arrays.asList(new Instant[] {date})));
+        });
+    loadItems(
+        model,
+        () ->
+            ProjectManager.getListDates().stream()
+                .map(date -> date.toString().split("T")[0])
+                .collect(Collectors.toList()));
 
     prepareGui();
   }
@@ -397,7 +778,7 @@ public class GuiManager {
             "DATE",
             new ActionListener() {
               public void actionPerformed(ActionEvent e) {
-                startDateMenu(null);
+                startDateMenu();
               }
             });
 
@@ -46,14 +46,27 @@ public class Interval {
     return formatted_data.substring(formatted_data.indexOf(' ') + 1);
   }
 
+  /**
+   * Get the formatted time, with the fixed-width codec if possible.
+   *
+   * @param time The time to format.
+   * @return The text representing the time.
+   */
+  private static String formatDateTime(final LocalDateTime time) {
+    final long second = IntervalStore.toEpochSecond(time);
+    return IntervalCodec.isFormattable(second)
+        ? IntervalCodec.formatTime(second)
+        : time.format(_formatter);
+  }
+
   /** Get the formatted time to present the start time. */
   public String formatStartTime() {
-    return getStartTime().format(_formatter);
+    return formatDateTime(getStartTime());
   }
 
   /** Get the formatted time to present the end time. */
   public String formatEndTime() {
-    return getEndTime().format(_formatter);
+    return formatDateTime(getEndTime());
   }
 
   /**
@@ -62,6 +75,11 @@ public class Interval {
    * @return The text for this timestamp.
    */
   public String formatInterval() {
+    final long start = IntervalStore.toEpochSecond(_time_start);
+    final long end = IntervalStore.toEpochSecond(_time_end);
+    if (IntervalCodec.isFormattable(start) && IntervalCodec.isFormattable(end)) {
+      return IntervalCodec.formatInterval(start, end);
+    }
     return formatStartTime() + " - " + formatEndTime();
   }
 
@@ -153,12 +171,8 @@ public class Interval {
   }
 
   public Interval(String text) {
-    final String[] slices = text.split(" - ");
-
-    assert slices.length == 2 : "Line in log cannot be parsed.";
-
-    _time_start = parseDateTime(slices[0]);
-    _time_end = parseDateTime(slices[1]);
+    _time_start = IntervalStore.toDateTime(IntervalCodec.parseStartSecond(text));
+    _time_end = IntervalStore.toDateTime(IntervalCodec.parseEndSecond(text));
   }
 
   public Interval(LocalDateTime time_start, LocalDateTime time_end) {
@@ -0,0 +1,282 @@
+package ProjectTimeManager;
+
+/// This class parses and formats the lines in the logs by the position of the characters, without
+/// formatter and temporary objects, as the lines have fixed width.
+public class IntervalCodec {
+  /** The length of one formatted time, "yyyy-MM-dd HH:mm:ss". */
+  public static final int LENGTH_TIME = 19;
+
+  /** The separator between start and end time. */
+  private static final String _sep = " - ";
+
+  /** The length of one formatted interval. */
+  public static final int LENGTH_INTERVAL = LENGTH_TIME * 2 + 3;
+
+  /** The position of the end time in one formatted interval. */
+  private static final int _offset_end = LENGTH_TIME + 3;
+
+  /** The earliest second which can be formatted with four-digit year, 0000-01-01 00:00:00. */
+  private static final long _second_min = -62167219200l;
+
+  /** The latest second which can be formatted with four-digit year, 9999-12-31 23:59:59. */
+  private static final long _second_max = 253402300799l;
+
+  /**
+   * Create the error for one malformed line.
+   *
+   * @param text The malformed line.
+   * @param position The position of the wrong character.
+   * @param reason What is wrong.
+   * @return The error to throw.
+   */
+  private static IllegalArgumentException error(
+      final CharSequence text, final int position, final String reason) {
+    return new IllegalArgumentException(
+        String.format("cannot parse \"%s\" at column %d: %s", text, position + 1, reason));
+  }
+
+  /**
+   * Read the number with given digits at the position.
+   *
+   * @param text The text to read.
+   * @param offset The position of the first digit.
+   * @param count The number of digits.
+   * @return The number.
+   */
+  private static int parseNumber(final CharSequence text, final int offset, final int count) {
+    int number = 0;
+    for (int i = offset; i < offset + count; ++i) {
+      final char ch = text.charAt(i);
+      if (ch < '0' || ch > '9') {
+        throw error(text, i, "digit expected");
+      }
+      number = number * 10 + (ch - '0');
+    }
+    return number;
+  }
+
+  /**
+   * Checks the character at the position.
+   *
+   * @param text The text to read.
+   * @param offset The position of the character.
+   * @param expected The expected character.
+   */
+  private static void expect(final CharSequence text, final int offset, final char expected) {
+    if (text.charAt(offset) != expected) {
+      throw error(text, offset, "'" + expected + "' expected");
+    }
+  }
+
+  /** Checks whether the year is a leap year. */
+  private static boolean isLeapYear(final long year) {
+    return (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+  }
+
+  /** Get the number of days in the month. */
+  private static int getDaysInMonth(final long year, final int month) {
+    switch (month) {
+      case 2:
+        return isLeapYear(year) ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /**
+   * Get the day from epoch for the date in proleptic Gregorian calendar.
+   *
+   * @param year The year.
+   * @param month The month, 1 to 12.
+   * @param day The day in month, 1 to 31.
+   * @return The day from epoch.
+   */
+  public static long toEpochDay(long year, final int month, final int day) {
+    year -= (month <= 2) ? 1 : 0;
+    final long era = (year >= 0 ? year : year - 399) / 400;
+    final long year_of_era = year - era * 400;
+    final long day_of_year = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+    final long day_of_era =
+        year_of_era * 365 + year_of_era / 4 - year_of_era / 100 + day_of_year;
+    return era * 146097 + day_of_era - 719468;
+  }
+
+  /**
+   * Read the time "yyyy-MM-dd HH:mm:ss" at the position.
+   *
+   * @param text The text to read.
+   * @param offset The position of the first character of the time.
+   * @return The seconds from epoch, as if the time were in UTC.
+   */
+  public static long parseEpochSecond(final CharSequence text, final int offset) {
+    if (text.length() < offset + LENGTH_TIME) {
+      throw error(text, text.length(), "time is incomplete");
+    }
+    final int year = parseNumber(text, offset, 4);
+    expect(text, offset + 4, '-');
+    final int month = parseNumber(text, offset + 5, 2);
+    expect(text, offset + 7, '-');
+    final int day = parseNumber(text, offset + 8, 2);
+    expect(text, offset + 10, ' ');
+    final int hour = parseNumber(text, offset + 11, 2);
+    expect(text, offset + 13, ':');
+    final int minute = parseNumber(text, offset + 14, 2);
+    expect(text, offset + 16, ':');
+    final int second = parseNumber(text, offset + 17, 2);
+
+    if (month < 1 || month > 12) {
+      throw error(text, offset + 5, "month out of range");
+    }
+    if (day < 1 || day > getDaysInMonth(year, month)) {
+      throw error(text, offset + 8, "day out of range");
+    }
+    if (hour > 23) {
+      throw error(text, offset + 11, "hour out of range");
+    }
+    if (minute > 59) {
+      throw error(text, offset + 14, "minute out of range");
+    }
+    if (second > 59) {
+      throw error(text, offset + 17, "second out of range");
+    }
+
+    return toEpochDay(year, month, day) * TimeLogManager.SECONDS_PER_DAY
+        + hour * 3600l
+        + minute * 60l
+        + second;
+  }
+
+  /**
+   * Checks the length and the separator of one line, the times are checked when they are read.
+   *
+   * @param line The line to check.
+   */
+  public static void checkLine(final CharSequence line) {
+    if (line.length() != LENGTH_INTERVAL) {
+      throw error(
+          line, Math.min(line.length(), LENGTH_INTERVAL), "length should be " + LENGTH_INTERVAL);
+    }
+    for (int i = 0; i < _sep.length(); ++i) {
+      expect(line, LENGTH_TIME + i, _sep.charAt(i));
+    }
+  }
+
+  /**
+   * Read the start time of one line.
+   *
+   * @param line The line to read.
+   * @return The starting second from epoch.
+   */
+  public static long parseStartSecond(final CharSequence line) {
+    checkLine(line);
+    return parseEpochSecond(line, 0);
+  }
+
+  /**
+   * Read the end time of one line.
+   *
+   * @param line The line to read.
+   * @return The end second from epoch.
+   */
+  public static long parseEndSecond(final CharSequence line) {
+    checkLine(line);
+    return parseEpochSecond(line, _offset_end);
+  }
+
+  /**
+   * Write the number with given digits at the position.
+   *
+   * @param buffer The buffer to write.
+   * @param offset The position of the first digit.
+   * @param count The number of digits.
+   * @param number The number to write.
+   */
+  private static void formatNumber(
+      final char[] buffer, final int offset, final int count, long number) {
+    for (int i = offset + count - 1; i >= offset; --i) {
+      buffer[i] = (char) ('0' + number % 10);
+      number /= 10;
+    }
+  }
+
+  /**
+   * Checks whether the second can be formatted by this codec.
+   *
+   * @param second Seconds from epoch.
+   * @return Whether the year of the second has four digits.
+   */
+  public static boolean isFormattable(final long second) {
+    return second >= _second_min && second <= _second_max;
+  }
+
+  /**
+   * Write the time "yyyy-MM-dd HH:mm:ss" at the position.
+   *
+   * @param second The seconds from epoch, as if the time were in UTC.
+   * @param buffer The buffer to write.
+   * @param offset The position of the first character of the time.
+   */
+  public static void formatEpochSecond(final long second, final char[] buffer, final int offset) {
+    assert isFormattable(second) : "year cannot be formatted with four digits";
+
+    final long day_from_epoch = Math.floorDiv(second, TimeLogManager.SECONDS_PER_DAY);
+    final long second_of_day = second - day_from_epoch * TimeLogManager.SECONDS_PER_DAY;
+
+    final long z = day_from_epoch + 719468;
+    final long era = (z >= 0 ? z : z - 146096) / 146097;
+    final long day_of_era = z - era * 146097;
+    final long year_of_era =
+        (day_of_era - day_of_era / 1460 + day_of_era / 36524 - day_of_era / 146096) / 365;
+    final long day_of_year = day_of_era - (365 * year_of_era + year_of_era / 4 - year_of_era / 100);
+    final long month_shifted = (5 * day_of_year + 2) / 153;
+    final long day = day_of_year - (153 * month_shifted + 2) / 5 + 1;
+    final long month = month_shifted < 10 ? month_shifted + 3 : month_shifted - 9;
+    final long year = year_of_era + era * 400 + (month <= 2 ? 1 : 0);
+
+    formatNumber(buffer, offset, 4, year);
+    buffer[offset + 4] = '-';
+    formatNumber(buffer, offset + 5, 2, month);
+    buffer[offset + 7] = '-';
+    formatNumber(buffer, offset + 8, 2, day);
+    buffer[offset + 10] = ' ';
+    formatNumber(buffer, offset + 11, 2, second_of_day / 3600);
+    buffer[offset + 13] = ':';
+    formatNumber(buffer, offset + 14, 2, second_of_day / 60 % 60);
+    buffer[offset + 16] = ':';
+    formatNumber(buffer, offset + 17, 2, second_of_day % 60);
+  }
+
+  /**
+   * Get the text "yyyy-MM-dd HH:mm:ss" for the second.
+   *
+   * @param second The seconds from epoch, as if the time were in UTC.
+   * @return The formatted time.
+   */
+  public static String formatTime(final long second) {
+    char[] buffer = new char[LENGTH_TIME];
+    formatEpochSecond(second, buffer, 0);
+    return new String(buffer);
+  }
+
+  /**
+   * Get the line "yyyy-MM-dd HH:mm:ss - yyyy-MM-dd HH:mm:ss" for the interval.
+   *
+   * @param start The starting second from epoch.
+   * @param end The end second from epoch.
+   * @return The formatted interval.
+   */
+  public static String formatInterval(final long start, final long end) {
+    char[] buffer = new char[LENGTH_INTERVAL];
+    formatEpochSecond(start, buffer, 0);
+    for (int i = 0; i < _sep.length(); ++i) {
+      buffer[LENGTH_TIME + i] = _sep.charAt(i);
+    }
+    formatEpochSecond(end, buffer, _offset_end);
+    return new String(buffer);
+  }
+}
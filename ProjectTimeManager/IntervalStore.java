@@ -0,0 +1,373 @@
+package ProjectTimeManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/// This class stores the intervals of one project as sorted arrays of start and end seconds.
+public class IntervalStore {
+  /** The initial capacity of the arrays. */
+  private static final int _initial_capacity = 16;
+
+  /** Starting seconds from epoch of the intervals, ascending. */
+  private long[] _starts = new long[_initial_capacity];
+
+  /** End seconds from epoch of the intervals, ascending. */
+  private long[] _ends = new long[_initial_capacity];
+
+  /** The number of stored intervals. */
+  private int _size = 0;
+
+  /** The days from epoch on which intervals start, ascending and distinct. */
+  private long[] _days = new long[_initial_capacity];
+
+  /** The total duration in millisecond of the intervals starting on each day. */
+  private long[] _day_totals_ms = new long[_initial_capacity];
+
+  /** The total duration in millisecond of the intervals starting on or before each day. */
+  private long[] _day_cumulative_ms = new long[_initial_capacity];
+
+  /** The number of intervals starting on or before each day. */
+  private int[] _day_cumulative_count = new int[_initial_capacity];
+
+  /** The number of days with intervals. */
+  private int _count_day = 0;
+
+  public IntervalStore() {}
+
+  /**
+   * Copy the intervals of another store.
+   *
+   * @param other The store to copy.
+   */
+  public IntervalStore(final IntervalStore other) {
+    _starts = Arrays.copyOf(other._starts, Math.max(other._size, _initial_capacity));
+    _ends = Arrays.copyOf(other._ends, _starts.length);
+    _size = other._size;
+    final int capacity_day = Math.max(other._count_day, _initial_capacity);
+    _days = Arrays.copyOf(other._days, capacity_day);
+    _day_totals_ms = Arrays.copyOf(other._day_totals_ms, capacity_day);
+    _day_cumulative_ms = Arrays.copyOf(other._day_cumulative_ms, capacity_day);
+    _day_cumulative_count = Arrays.copyOf(other._day_cumulative_count, capacity_day);
+    _count_day = other._count_day;
+  }
+
+  /**
+   * Get the seconds from epoch for the time, which is stored as if it were in UTC.
+   *
+   * @param time The time to convert.
+   * @return The seconds from epoch.
+   */
+  public static long toEpochSecond(final LocalDateTime time) {
+    return time.toEpochSecond(ZoneOffset.UTC);
+  }
+
+  /**
+   * Get the time for the seconds from epoch, which was stored as if it were in UTC.
+   *
+   * @param second The seconds from epoch.
+   * @return The time.
+   */
+  public static LocalDateTime toDateTime(final long second) {
+    return LocalDateTime.ofEpochSecond(second, 0, ZoneOffset.UTC);
+  }
+
+  /**
+   * Get the day from epoch which contains the given second.
+   *
+   * @param second The seconds from epoch.
+   * @return The day from epoch.
+   */
+  public static long toEpochDay(final long second) {
+    return Math.floorDiv(second, TimeLogManager.SECONDS_PER_DAY);
+  }
+
+  /** Get the number of stored intervals. */
+  public int size() {
+    return _size;
+  }
+
+  /** Checks whether no interval is stored. */
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  /** Remove all intervals. */
+  public void clear() {
+    _size = 0;
+    _count_day = 0;
+  }
+
+  /**
+   * Remove the intervals which start on or after the given day, the earlier ones are kept.
+   *
+   * @param day Day from epoch.
+   */
+  public void removeFromDay(final long day) {
+    _size = indexOfDay(day);
+    _count_day = indexOfDayRollup(day);
+  }
+
+  /**
+   * Add one interval at the end, the interval should be later than all stored ones.
+   *
+   * @param start Starting second from epoch.
+   * @param end End second from epoch.
+   */
+  public void add(final long start, final long end) {
+    if (_size == _starts.length) {
+      _starts = Arrays.copyOf(_starts, _size * 2);
+      _ends = Arrays.copyOf(_ends, _size * 2);
+    }
+    _starts[_size] = start;
+    _ends[_size] = end;
+    ++_size;
+
+    // the intervals come in order, so only the last day can be extended
+    final long day = toEpochDay(start);
+    final long duration_ms = (end - start) * 1000l;
+    if (_count_day > 0 && _days[_count_day - 1] == day) {
+      _day_totals_ms[_count_day - 1] += duration_ms;
+      _day_cumulative_ms[_count_day - 1] += duration_ms;
+      ++_day_cumulative_count[_count_day - 1];
+    } else {
+      if (_count_day == _days.length) {
+        _days = Arrays.copyOf(_days, _count_day * 2);
+        _day_totals_ms = Arrays.copyOf(_day_totals_ms, _count_day * 2);
+        _day_cumulative_ms = Arrays.copyOf(_day_cumulative_ms, _count_day * 2);
+        _day_cumulative_count = Arrays.copyOf(_day_cumulative_count, _count_day * 2);
+      }
+      _days[_count_day] = day;
+      _day_totals_ms[_count_day] = duration_ms;
+      _day_cumulative_ms[_count_day] =
+          duration_ms + (_count_day > 0 ? _day_cumulative_ms[_count_day - 1] : 0l);
+      _day_cumulative_count[_count_day] = _size;
+      ++_count_day;
+    }
+  }
+
+  /**
+   * Add one interval at the end, the interval should be later than all stored ones.
+   *
+   * @param interval The interval to add.
+   */
+  public void add(final Interval interval) {
+    add(toEpochSecond(interval.getStartTime()), toEpochSecond(interval.getEndTime()));
+  }
+
+  /** Get the starting second from epoch of the interval with given index. */
+  public long getStartSecond(final int index) {
+    return _starts[index];
+  }
+
+  /** Get the end second from epoch of the interval with given index. */
+  public long getEndSecond(final int index) {
+    return _ends[index];
+  }
+
+  /** Get the day from epoch when the interval with given index starts. */
+  public long getStartDay(final int index) {
+    return toEpochDay(_starts[index]);
+  }
+
+  /** Get the duration of the interval with given index in millisecond. */
+  public long getDurationMs(final int index) {
+    return (_ends[index] - _starts[index]) * 1000l;
+  }
+
+  /**
+   * Create the interval with given index, the interval is not kept in this store.
+   *
+   * @param index The index of the interval.
+   * @return The interval.
+   */
+  public Interval get(final int index) {
+    return new Interval(toDateTime(_starts[index]), toDateTime(_ends[index]));
+  }
+
+  /**
+   * Get the line in log for the interval with given index.
+   *
+   * @param index The index of the interval.
+   * @return The formatted interval.
+   */
+  public String format(final int index) {
+    if (IntervalCodec.isFormattable(_starts[index]) && IntervalCodec.isFormattable(_ends[index])) {
+      return IntervalCodec.formatInterval(_starts[index], _ends[index]);
+    }
+    return get(index).formatInterval();
+  }
+
+  /**
+   * Find the first interval which starts at or after the given second.
+   *
+   * @param second Seconds from epoch.
+   * @return The index of the first interval starting at or after the second, or size() if none.
+   */
+  public int indexOfStartAtOrAfter(final long second) {
+    int low = 0;
+    int high = _size;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (_starts[mid] < second) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Find the first interval which starts on or after the given day.
+   *
+   * @param day Day from epoch.
+   * @return The index of the first interval starting on or after the day, or size() if none.
+   */
+  public int indexOfDay(final long day) {
+    return indexOfStartAtOrAfter(day * TimeLogManager.SECONDS_PER_DAY);
+  }
+
+  /**
+   * Create the intervals with index in [index_from, index_to).
+   *
+   * @param index_from The first index to include.
+   * @param index_to The first index to exclude.
+   * @return The intervals.
+   */
+  public ArrayList<Interval> getIntervals(final int index_from, final int index_to) {
+    ArrayList<Interval> intervals = new ArrayList<>(Math.max(0, index_to - index_from));
+    for (int i = index_from; i < index_to; ++i) {
+      intervals.add(get(i));
+    }
+    return intervals;
+  }
+
+  /**
+   * Create the intervals which start between the given days.
+   *
+   * @param day_from The first day from epoch to include.
+   * @param day_to The first day from epoch to exclude.
+   * @return The intervals starting in [day_from, day_to).
+   */
+  public ArrayList<Interval> getIntervalsBetweenDays(final long day_from, final long day_to) {
+    return getIntervals(indexOfDay(day_from), indexOfDay(day_to));
+  }
+
+  /**
+   * Find the first day with intervals which is the given day or later.
+   *
+   * @param day Day from epoch.
+   * @return The index in the days with intervals, or the number of such days if none.
+   */
+  private int indexOfDayRollup(final long day) {
+    int low = 0;
+    int high = _count_day;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (_days[mid] < day) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Get the total duration of the intervals starting on the days with index before the given one.
+   *
+   * @param index_day The index in the days with intervals.
+   * @return The total duration in millisecond.
+   */
+  private long getCumulativeMs(final int index_day) {
+    return index_day > 0 ? _day_cumulative_ms[index_day - 1] : 0l;
+  }
+
+  /**
+   * Checks whether any interval starts on the given day.
+   *
+   * @param day Day from epoch.
+   * @return Whether there is interval starting on the day.
+   */
+  public boolean hasDataOnDay(final long day) {
+    final int index = indexOfDayRollup(day);
+    return index < _count_day && _days[index] == day;
+  }
+
+  /**
+   * Get the days from epoch on which intervals start, ascending and distinct.
+   *
+   * @return The days with intervals.
+   */
+  public ArrayList<Long> getDays() {
+    ArrayList<Long> days = new ArrayList<>(_count_day);
+    for (int i = 0; i < _count_day; ++i) {
+      days.add(_days[i]);
+    }
+    return days;
+  }
+
+  /** Get the total duration of all intervals in millisecond. */
+  public long getTotalMs() {
+    return getCumulativeMs(_count_day);
+  }
+
+  /**
+   * Get the total duration of the intervals starting on the given day.
+   *
+   * @param day Day from epoch.
+   * @return The total duration in millisecond.
+   */
+  public long getTotalMsOnDay(final long day) {
+    final int index = indexOfDayRollup(day);
+    return (index < _count_day && _days[index] == day) ? _day_totals_ms[index] : 0l;
+  }
+
+  /**
+   * Get the total duration of the intervals starting between the given days.
+   *
+   * @param day_from The first day from epoch to include.
+   * @param day_to The first day from epoch to exclude.
+   * @return The total duration in millisecond of the intervals starting in [day_from, day_to).
+   */
+  public long getTotalMsBetweenDays(final long day_from, final long day_to) {
+    if (day_to <= day_from) {
+      return 0l;
+    }
+    return getCumulativeMs(indexOfDayRollup(day_to)) - getCumulativeMs(indexOfDayRollup(day_from));
+  }
+
+  /**
+   * Get the number of the intervals starting between the given days.
+   *
+   * @param day_from The first day from epoch to include.
+   * @param day_to The first day from epoch to exclude.
+   * @return The number of the intervals starting in [day_from, day_to).
+   */
+  public int getCountBetweenDays(final long day_from, final long day_to) {
+    if (day_to <= day_from) {
+      return 0;
+    }
+    final int index_to = indexOfDayRollup(day_to);
+    final int index_from = indexOfDayRollup(day_from);
+    return (index_to > 0 ? _day_cumulative_count[index_to - 1] : 0)
+        - (index_from > 0 ? _day_cumulative_count[index_from - 1] : 0);
+  }
+
+  /**
+   * Checks whether the intervals are ordered, incl. whether all intervals have later end time and
+   * whether the starting time of one interval is later than the ending time of the earlier ones.
+   *
+   * @return Whether the intervals are ordered.
+   */
+  public boolean isOrdered() {
+    for (int i = 0; i < _size; ++i) {
+      if (_ends[i] <= _starts[i] || (i > 0 && _starts[i] <= _ends[i - 1])) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,330 @@
+package ProjectTimeManager;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/// This class shares the loaded projects in this process, so that one log is parsed only once
+/// until it changes. The shared projects are for reading, use new ProjectManager for writing.
+/// Projects are kept per directory for data (root), thus projects with the same name in different
+/// roots are cached separately.
+public class ProjectCache {
+  /** One loaded project and the state of its files when it was loaded. */
+  private static class Entry {
+    /** The loaded project. */
+    private final ProjectManager _project;
+
+    /** Size and modification time of the logs and the lock file. */
+    private final String _signature;
+
+    private Entry(final ProjectManager project, final String signature) {
+      _project = project;
+      _signature = signature;
+    }
+  }
+
+  /** The maximal number of cached projects, can be set with -Dptm.cache.size. */
+  private static int _capacity = Integer.getInteger("ptm.cache.size", 64);
+
+  /** The cached projects by root and name, the least recently used one comes first. */
+  private static final LinkedHashMap<String, Entry> _entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** The projects being loaded, so that concurrent requests for one project share one parse. */
+  private static final HashMap<String, FutureTask<ProjectManager>> _loading = new HashMap<>();
+
+  /** The number of requests served from the cache. */
+  private static long _count_hit = 0l;
+
+  /** The number of requests which loaded the project. */
+  private static long _count_miss = 0l;
+
+  /** The number of projects removed for the size limit. */
+  private static long _count_eviction = 0l;
+
+  /** The number of threads for loading projects, can be set with -Dptm.loader.threads. */
+  private static final int _count_loader =
+      Integer.getInteger("ptm.loader.threads", Runtime.getRuntime().availableProcessors());
+
+  /** The threads for loading projects in parallel, created when needed. */
+  private static ExecutorService _loader = null;
+
+  /** Get the threads for loading projects, they do not keep the program alive. */
+  private static synchronized ExecutorService getLoader() {
+    if (_loader == null) {
+      _loader =
+          Executors.newFixedThreadPool(
+              Math.max(1, _count_loader),
+              runnable -> {
+                Thread thread = new Thread(runnable, "ptm-loader");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    return _loader;
+  }
+
+  /**
+   * Get the key of one project in the cache.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The path of the project without extension.
+   */
+  private static String getKey(final String root, final String project_name) {
+    return Paths.get(root, project_name).toString();
+  }
+
+  /**
+   * Get the text which changes whenever the files of one project change.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The signature of the log and lock files.
+   */
+  private static String getSignature(final String root, final String project_name) {
+    return ProjectManager.getLogSignature(root, project_name)
+        + "/"
+        + ProjectManager.getLockSignature(root, project_name);
+  }
+
+  /** Remove the least recently used projects until the size limit is kept. */
+  private static void evict() {
+    Iterator<Map.Entry<String, Entry>> iter = _entries.entrySet().iterator();
+    while (_entries.size() > _capacity && iter.hasNext()) {
+      iter.next();
+      iter.remove();
+      ++_count_eviction;
+    }
+  }
+
+  /**
+   * Get the cached project and count the request, it is a hit if the files are unchanged.
+   *
+   * @param key The key of the project.
+   * @param signature The current signature of the files of the project.
+   * @return The cached entry, or null if the project is not cached.
+   */
+  private static synchronized Entry lookUp(final String key, final String signature) {
+    final Entry entry = _entries.get(key);
+    if (entry != null && entry._signature.equals(signature)) {
+      ++_count_hit;
+    } else {
+      ++_count_miss;
+    }
+    return entry;
+  }
+
+  /**
+   * Put the loaded project into the cache.
+   *
+   * @param project The loaded project.
+   * @param signature The signature of the files of the project before loading.
+   */
+  private static synchronized void store(final ProjectManager project, final String signature) {
+    _entries.put(getKey(project.getRoot(), project.getName()), new Entry(project, signature));
+    evict();
+  }
+
+  /**
+   * Get the loaded project with given name, it is loaded again if its files changed.
+   *
+   * @param project_name The name of the project.
+   * @return The shared project, which should not be modified.
+   */
+  public static ProjectManager get(final String project_name) {
+    return get(ProjectManager.getDefaultRoot(), project_name);
+  }
+
+  /**
+   * Get the loaded project with given name in the given root, see get.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The shared project, which should not be modified.
+   */
+  public static ProjectManager get(final String root, final String project_name) {
+    final String key = getKey(root, project_name);
+    final String signature = getSignature(root, project_name);
+    final Entry cached = lookUp(key, signature);
+    if (cached != null && cached._signature.equals(signature)) {
+      return cached._project;
+    }
+
+    // loaded without holding the cache, so that other projects can be loaded meanwhile; the
+    // cached copy is only extended with the new lines if the log has grown
+    FutureTask<ProjectManager> task = null;
+    boolean is_loader = false;
+    synchronized (ProjectCache.class) {
+      task = _loading.get(key);
+      if (task == null) {
+        task =
+            new FutureTask<>(
+                () ->
+                    (cached != null)
+                        ? new ProjectManager(cached._project)
+                        : new ProjectManager(root, project_name));
+        _loading.put(key, task);
+        is_loader = true;
+      }
+    }
+
+    if (is_loader) {
+      task.run();
+    }
+    try {
+      final ProjectManager project = task.get();
+      if (is_loader) {
+        store(project, signature);
+      }
+      return project;
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      assert 1 == 2 : "error loading project " + project_name;
+      return null;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return null;
+    } finally {
+      if (is_loader) {
+        synchronized (ProjectCache.class) {
+          _loading.remove(key, task);
+        }
+      }
+    }
+  }
+
+  /**
+   * Load the project with given name in the background, see get.
+   *
+   * @param project_name The name of the project.
+   * @return The shared project once it is loaded.
+   */
+  public static Future<ProjectManager> load(final String project_name) {
+    return load(ProjectManager.getDefaultRoot(), project_name);
+  }
+
+  /**
+   * Load the project with given name in the given root in the background, see get.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The shared project once it is loaded.
+   */
+  public static Future<ProjectManager> load(final String root, final String project_name) {
+    return getLoader().submit(() -> get(root, project_name));
+  }
+
+  /**
+   * Get the loaded projects with given names. The projects which are not cached are loaded in
+   * parallel, the order of the result is the same as the given names.
+   *
+   * @param project_names The names of the projects.
+   * @return The shared projects, which should not be modified.
+   */
+  public static ArrayList<ProjectManager> getAll(final List<String> project_names) {
+    return getAll(ProjectManager.getDefaultRoot(), project_names);
+  }
+
+  /**
+   * Get the loaded projects with given names in the given root, see getAll.
+   *
+   * @param root The directory for data.
+   * @param project_names The names of the projects.
+   * @return The shared projects, which should not be modified.
+   */
+  public static ArrayList<ProjectManager> getAll(
+      final String root, final List<String> project_names) {
+    ArrayList<Future<ProjectManager>> futures = new ArrayList<>(project_names.size());
+    for (final String project_name : project_names) {
+      futures.add(load(root, project_name));
+    }
+
+    ArrayList<ProjectManager> projects = new ArrayList<>(project_names.size());
+    try {
+      for (final Future<ProjectManager> future : futures) {
+        projects.add(future.get());
+      }
+    } catch (Exception ex) {
+      assert 1 == 2 : "error loading projects in parallel";
+      return null;
+    }
+    return projects;
+  }
+
+  /**
+   * Remove the project with given name from the cache.
+   *
+   * @param project_name The name of the project.
+   */
+  public static synchronized void invalidate(final String project_name) {
+    invalidate(ProjectManager.getDefaultRoot(), project_name);
+  }
+
+  /**
+   * Remove the project with given name in the given root from the cache.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   */
+  public static synchronized void invalidate(final String root, final String project_name) {
+    _entries.remove(getKey(root, project_name));
+  }
+
+  /** Remove all projects from the cache, the statistics are kept. */
+  public static synchronized void clear() {
+    _entries.clear();
+  }
+
+  /**
+   * Set the maximal number of cached projects.
+   *
+   * @param capacity The maximal number of cached projects.
+   */
+  public static synchronized void setCapacity(final int capacity) {
+    assert capacity >= 0 : "capacity of cache cannot be negative";
+    _capacity = capacity;
+    evict();
+  }
+
+  /** Get the maximal number of cached projects. */
+  public static synchronized int getCapacity() {
+    return _capacity;
+  }
+
+  /** Get the number of requests served from the cache. */
+  public static synchronized long getHitCount() {
+    return _count_hit;
+  }
+
+  /** Get the number of requests which loaded the project. */
+  public static synchronized long getMissCount() {
+    return _count_miss;
+  }
+
+  /** Get the text to present the usage of the cache. */
+  public static synchronized String getStatistics() {
+    final long count = _count_hit + _count_miss;
+    return String.format(
+        "project cache: %d/%d projects, %d hits, %d misses, %d evictions, hit rate %.1f%%",
+        _entries.size(),
+        _capacity,
+        _count_hit,
+        _count_miss,
+        _count_eviction,
+        count == 0l ? 0.0 : (100.0 * _count_hit / count));
+  }
+}
@@ -0,0 +1,285 @@
+package ProjectTimeManager;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// This class locks the logs of one project against the other threads and processes: readers hold
+/// a shared lock and read concurrently, one writer holds an exclusive lock while it appends or
+/// rewrites. The lock is taken on the hidden file .PROJECT.lock beside the logs, which is never
+/// renamed or removed, since the logs themselves are replaced by rewrites. The operating system
+/// allows one lock per file and process, thus the threads of this process share it.
+public class ProjectLock implements AutoCloseable {
+  /** The extension of the lock files. */
+  private static final String _extension = ".lock";
+
+  /** The state of the lock of each project in this process, by the path of its lock file. */
+  private static final ConcurrentHashMap<String, Holder> _holders = new ConcurrentHashMap<>();
+
+  /// This class is the lock of one project in this process, it holds the lock of the operating
+  /// system while any thread holds the lock. The lock of the operating system is taken and
+  /// released outside the monitor, thus a thread waiting for another process blocks no thread
+  /// which only checks the state here.
+  private static class Holder {
+    /** The lock file. */
+    private final String _filename;
+
+    /** The opened lock file, kept open once opened. */
+    private FileChannel _channel = null;
+
+    /** The lock of the operating system, null if not held. */
+    private FileLock _lock = null;
+
+    /** The number of shared locks held, per thread. */
+    private final HashMap<Thread, Integer> _count_shared_by_thread = new HashMap<>();
+
+    /** The number of shared locks held by all threads. */
+    private int _count_shared = 0;
+
+    /** The thread holding the exclusive lock, null if none. */
+    private Thread _owner = null;
+
+    /** The number of locks taken by the owner, which can lock again. */
+    private int _count_owner = 0;
+
+    /** The number of threads waiting for the exclusive lock, new readers let them go first. */
+    private int _count_writer_waiting = 0;
+
+    /** Whether one thread takes or releases the shared lock of the operating system now. */
+    private boolean _is_switching = false;
+
+    private Holder(final String filename) {
+      _filename = filename;
+    }
+
+    /**
+     * Take the lock of the operating system, the lock file is created if needed. Without it, the
+     * lock holds only in this process. It is called by one thread at a time, without the monitor.
+     *
+     * @param is_shared Whether the lock is shared.
+     */
+    private void lockFile(final boolean is_shared) {
+      try {
+        if (_channel == null) {
+          _channel =
+              FileChannel.open(
+                  Paths.get(_filename),
+                  StandardOpenOption.CREATE,
+                  StandardOpenOption.READ,
+                  StandardOpenOption.WRITE);
+        }
+        _lock = _channel.lock(0l, Long.MAX_VALUE, is_shared);
+      } catch (IOException ex) {
+        assert 1 == 2 : "error locking " + _filename;
+      }
+    }
+
+    /** Release the lock of the operating system, called like lockFile. */
+    private void unlockFile() {
+      if (_lock == null) {
+        return;
+      }
+      try {
+        _lock.release();
+      } catch (IOException ex) {
+        assert 1 == 2 : "error unlocking " + _filename;
+      }
+      _lock = null;
+    }
+
+    /**
+     * Wait for notifyAll, the caller holds the monitor.
+     *
+     * @return Whether the thread was interrupted, the interruption is given back after waiting.
+     */
+    private boolean await() {
+      try {
+        wait();
+      } catch (InterruptedException ex) {
+        return true;
+      }
+      return false;
+    }
+
+    /** Take the shared lock, the threads holding it already or the owner take it at once. */
+    private void acquireShared() {
+      final Thread thread = Thread.currentThread();
+      synchronized (this) {
+        if (_owner == thread) {
+          ++_count_owner;
+          return;
+        }
+        final Integer count = _count_shared_by_thread.get(thread);
+        if (count != null) {
+          _count_shared_by_thread.put(thread, count + 1);
+          ++_count_shared;
+          return;
+        }
+        boolean is_interrupted = false;
+        while (_owner != null || _count_writer_waiting > 0 || _is_switching) {
+          is_interrupted |= await();
+        }
+        if (is_interrupted) {
+          thread.interrupt();
+        }
+        if (_count_shared > 0) {
+          _count_shared_by_thread.put(thread, 1);
+          ++_count_shared;
+          return;
+        }
+        _is_switching = true;
+      }
+
+      lockFile(true);
+      synchronized (this) {
+        _is_switching = false;
+        _count_shared_by_thread.put(thread, 1);
+        ++_count_shared;
+        notifyAll();
+      }
+    }
+
+    /**
+     * Take the exclusive lock. A thread holding the shared lock cannot take it, since it would wait
+     * for itself.
+     *
+     * @throws IllegalStateException If this thread holds the shared lock.
+     */
+    private void acquireExclusive() {
+      final Thread thread = Thread.currentThread();
+      synchronized (this) {
+        if (_owner == thread) {
+          ++_count_owner;
+          return;
+        }
+        if (_count_shared_by_thread.containsKey(thread)) {
+          throw new IllegalStateException(
+              "shared lock of " + _filename + " cannot become exclusive");
+        }
+        ++_count_writer_waiting;
+        boolean is_interrupted = false;
+        while (_owner != null || _count_shared > 0 || _is_switching) {
+          is_interrupted |= await();
+        }
+        if (is_interrupted) {
+          thread.interrupt();
+        }
+        --_count_writer_waiting;
+        _owner = thread;
+        _count_owner = 1;
+      }
+
+      // the other threads wait for the owner, thus the lock of the system is taken without monitor
+      lockFile(false);
+    }
+
+    /** Release the lock taken by this thread. */
+    private void release() {
+      final Thread thread = Thread.currentThread();
+      synchronized (this) {
+        if (_owner == thread) {
+          if (--_count_owner > 0) {
+            return;
+          }
+        } else {
+          final Integer count = _count_shared_by_thread.get(thread);
+          assert count != null : "shared lock of " + _filename + " is not held by this thread";
+          if (count == null) {
+            return;
+          }
+          if (count > 1) {
+            _count_shared_by_thread.put(thread, count - 1);
+          } else {
+            _count_shared_by_thread.remove(thread);
+          }
+          if (--_count_shared > 0) {
+            return;
+          }
+          _is_switching = true;
+        }
+      }
+
+      unlockFile();
+      synchronized (this) {
+        if (_owner == thread) {
+          _owner = null;
+        } else {
+          _is_switching = false;
+        }
+        notifyAll();
+      }
+    }
+  }
+
+  /** The lock of the project, null once released. */
+  private Holder _holder;
+
+  private ProjectLock(final Holder holder, final boolean is_shared) {
+    if (is_shared) {
+      holder.acquireShared();
+    } else {
+      holder.acquireExclusive();
+    }
+    _holder = holder;
+  }
+
+  /**
+   * Get the lock file of one project.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The filename of the lock file.
+   */
+  public static String getLockFilename(final String root, final String project_name) {
+    return Paths.get(root, "." + project_name + _extension).toString();
+  }
+
+  /**
+   * Get the lock of one project in this process.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The lock, one per lock file.
+   */
+  private static Holder getHolder(final String root, final String project_name) {
+    return _holders.computeIfAbsent(
+        Paths.get(getLockFilename(root, project_name)).toAbsolutePath().normalize().toString(),
+        Holder::new);
+  }
+
+  /**
+   * Lock one project for reading, it waits while another thread or process writes.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The lock to close after reading.
+   */
+  public static ProjectLock lockShared(final String root, final String project_name) {
+    return new ProjectLock(getHolder(root, project_name), true);
+  }
+
+  /**
+   * Lock one project for writing, it waits while another thread or process reads or writes. A
+   * thread holding the shared lock of the project must release it first.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The lock to close after writing.
+   * @throws IllegalStateException If this thread holds the shared lock of the project.
+   */
+  public static ProjectLock lockExclusive(final String root, final String project_name) {
+    return new ProjectLock(getHolder(root, project_name), false);
+  }
+
+  @Override
+  public void close() {
+    if (_holder != null) {
+      _holder.release();
+      _holder = null;
+    }
+  }
+}
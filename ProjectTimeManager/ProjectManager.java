@@ -5,36 +5,107 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /// This class handles the projects.
 public class ProjectManager {
-  /** The path of the directory for storing the data. */
+  /** The path of the directory for storing the data, if no other root is given. */
   private static final String _cache_path = ".ptm_projects";
 
   /** The extension for logging data. */
   private static final String _extension = ".prt";
 
+  /** The extension for logging data in binary format. */
+  private static final String _extension_binary = ".prb";
+
+  /** The extension for the journal of the sessions. */
+  private static final String _extension_journal = ".wal";
+
   /** The name of file for this project, if the Manager is used to manage one project. */
   private final String _filename;
 
   /** The name of the project, will be used as filename for saving the */
   private final String _name;
 
+  /** The directory for data (root) of this project. */
+  private final String _root;
+
   /** The log manager for time used in this project. */
   private TimeLogManager _log_manager = new TimeLogManager();
 
-  private Semaphore _mutex = new Semaphore(1);
+  /** The manifest of the segments if the log is segmented by month, null if it is one file. */
+  private SegmentedLog _segments = null;
+
+  /** Whether the intervals are read, the segments of a segmented log are read when needed. */
+  private volatile boolean _is_loaded = true;
+
+  /** Whether new projects are segmented by month, can be set with -Dptm.segmented=true. */
+  private static final boolean _is_segmented_default = Boolean.getBoolean("ptm.segmented");
+
+  /** The record of the running session in the lock file, null if this project is not started. */
+  private SessionRecord _session_record = null;
+
+  /** The journal of the running session, null if this project is not started here. */
+  private SessionJournal _journal = null;
+
+  /** The number of days in one page of the summary. */
+  public static final int SUMMARY_PAGE_DAYS = 50;
+
+  /** The seconds between two heartbeats of a running session, set with -Dptm.heartbeat.seconds. */
+  private static final long _seconds_heartbeat = Long.getLong("ptm.heartbeat.seconds", 1l);
 
   private String getPathLock() {
-    return Paths.get(_cache_path, _name + ".lk").toString();
+    return getLockFilename(_root, _name);
+  }
+
+  /**
+   * Get the filename for the unfinished session.
+   *
+   * @param project_name The name of this project.
+   * @return
+   */
+  public static String getLockFilename(String project_name) {
+    return getLockFilename(_cache_path, project_name);
+  }
+
+  /**
+   * Get the filename for the unfinished session in the given root.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @return
+   */
+  public static String getLockFilename(String root, String project_name) {
+    return Paths.get(root, project_name + ".lk").toString();
+  }
+
+  /**
+   * Get the filename for the journal of the sessions in the given root.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @return
+   */
+  public static String getJournalFilename(String root, String project_name) {
+    return Paths.get(root, project_name + _extension_journal).toString();
+  }
+
+  /**
+   * Get a text which changes whenever the unfinished session of one project changes.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @return The signature of the lock file.
+   */
+  public static String getLockSignature(String root, String project_name) {
+    final File file = new File(getLockFilename(root, project_name));
+    return file.length() + "/" + file.lastModified();
   }
 
   /**
@@ -43,13 +114,13 @@ public class ProjectManager {
    * @return Whether the save data for this project exists.
    */
   private boolean isProjectAvailable() {
-    return Files.exists(Paths.get(_filename));
+    return Files.exists(Paths.get(_filename)) || isSegmented(_root, _name);
   }
 
   /** Checks the existence directory for data and create if not exists. */
-  private static void prepareDirectory() {
+  private static void prepareDirectory(String root) {
     // if the directory for data is not availalble, create the directory.
-    final File file_cache_dir = new File(_cache_path);
+    final File file_cache_dir = new File(root);
     if (!file_cache_dir.exists()) {
       file_cache_dir.mkdirs();
     }
@@ -62,17 +133,169 @@ public class ProjectManager {
    * @return Whether the project with given name is available.
    */
   public static boolean isProjectAvailable(String project_name) {
-    return Files.exists(Paths.get(getLogFilename(project_name)));
+    return isProjectAvailable(_cache_path, project_name);
+  }
+
+  /**
+   * Checks whether the project with given name is available in the given root.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of consulted project.
+   * @return Whether the project with given name is available.
+   */
+  public static boolean isProjectAvailable(String root, String project_name) {
+    return Files.exists(Paths.get(getLogFilename(root, project_name)))
+        || isSegmented(root, project_name);
+  }
+
+  /**
+   * Get the directory of the segments if the log of one project is segmented by month.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @return
+   */
+  private static String getSegmentDirectory(String root, String project_name) {
+    return Paths.get(root, project_name).toString();
+  }
+
+  /**
+   * Checks whether the log of one project is segmented by month.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @return Whether the manifest of the segments exists.
+   */
+  public static boolean isSegmented(String root, String project_name) {
+    return SegmentedLog.exists(getSegmentDirectory(root, project_name));
   }
 
   /**
    * Get the filename for the logged time.
    *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @return
+   */
+  private static String getLogFilename(String root, String project_name) {
+    return Paths.get(root, project_name + _extension).toString();
+  }
+
+  /**
+   * Get the filename for the logged time in binary format.
+   *
+   * @param root The directory for data.
    * @param project_name The name of this project.
    * @return
    */
-  private static String getLogFilename(String project_name) {
-    return Paths.get(_cache_path, project_name + _extension).toString();
+  private static String getBinaryLogFilename(String root, String project_name) {
+    return Paths.get(root, project_name + _extension_binary).toString();
+  }
+
+  /**
+   * Checks whether the binary log of this project is newer than the text log, thus should be read.
+   *
+   * @return Whether the binary log should be read.
+   */
+  private boolean isBinaryLogNewer() {
+    final File file_binary = new File(getBinaryLogFilename(_root, _name));
+    return file_binary.exists() && file_binary.lastModified() > new File(_filename).lastModified();
+  }
+
+  /**
+   * Get a text which changes whenever the logs of one project change, i.e. size and modification
+   * time of the text and binary logs, or of the manifest if the log is segmented.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @return The signature of the logs.
+   */
+  public static String getLogSignature(String root, String project_name) {
+    final File file = new File(getLogFilename(root, project_name));
+    final File file_binary = new File(getBinaryLogFilename(root, project_name));
+    return file.length()
+        + "/"
+        + file.lastModified()
+        + "/"
+        + file_binary.lastModified()
+        + "/"
+        + SegmentedLog.getSignature(getSegmentDirectory(root, project_name));
+  }
+
+  /**
+   * Get the index of days with data for all available projects in the given root.
+   *
+   * @param root The directory for data.
+   * @return The up-to-date index.
+   */
+  private static DayIndex getDayIndex(String root) {
+    return DayIndex.update(root, getListProject(root));
+  }
+
+  /**
+   * Create the binary log from the text log of one project, it is read instead of the text log
+   * until the text log is modified.
+   *
+   * @param project_name The name of this project.
+   * @return Whether the binary log is created.
+   */
+  public static boolean createBinaryLog(String project_name) {
+    final ProjectLock lock = ProjectLock.lockExclusive(_cache_path, project_name);
+    try {
+      return BinaryLog.convertTextToBinary(
+          getLogFilename(_cache_path, project_name),
+          getBinaryLogFilename(_cache_path, project_name));
+    } finally {
+      lock.close();
+    }
+  }
+
+  /**
+   * Split the log of one project into segments by month, the text and binary logs are removed.
+   *
+   * @param project_name The name of this project.
+   * @return Whether the log is segmented.
+   */
+  public static boolean createSegmentedLog(String project_name) {
+    final String filename = getLogFilename(_cache_path, project_name);
+    final ProjectLock lock = ProjectLock.lockExclusive(_cache_path, project_name);
+    try {
+      if (isSegmented(_cache_path, project_name) || !Files.exists(Paths.get(filename))) {
+        return false;
+      }
+      TimeLogManager log_manager = new TimeLogManager();
+      if (!log_manager.readLog(filename)
+          || !new SegmentedLog(getSegmentDirectory(_cache_path, project_name))
+              .append(log_manager.getIntervalStore(), 0)) {
+        return false;
+      }
+      new File(filename).delete();
+      new File(getBinaryLogFilename(_cache_path, project_name)).delete();
+    } finally {
+      lock.close();
+    }
+    ProjectCache.invalidate(project_name);
+    return true;
+  }
+
+  /**
+   * Archive the closed months of one project, i.e. the months before this month; the log is
+   * segmented by month first if it is one file. The current month stays text.
+   *
+   * @param project_name The name of this project.
+   * @return The number of archived months, or -1 if the project cannot be segmented.
+   */
+  public static int archiveProject(String project_name) {
+    final ProjectLock lock = ProjectLock.lockExclusive(_cache_path, project_name);
+    try {
+      if (!isSegmented(_cache_path, project_name) && !createSegmentedLog(project_name)) {
+        return -1;
+      }
+      return new SegmentedLog(getSegmentDirectory(_cache_path, project_name))
+          .archiveBefore(TimeLogManager.getCurrnetMonthId());
+    } finally {
+      lock.close();
+    }
   }
 
   /**
@@ -81,14 +304,27 @@ public class ProjectManager {
    * @return A list of the available projects.
    */
   public static ArrayList<String> getListProject() {
-    prepareDirectory();
+    return getListProject(_cache_path);
+  }
 
-    return Arrays.stream(new File(_cache_path).listFiles())
+  /**
+   * Get the available projects in the given root.
+   *
+   * @param root The directory for data.
+   * @return A list of the available projects.
+   */
+  public static ArrayList<String> getListProject(String root) {
+    prepareDirectory(root);
+
+    return Arrays.stream(new File(root).listFiles())
+        .filter(file -> file.getName().endsWith(_extension) || SegmentedLog.exists(file.getPath()))
         .map(File::getName)
-        .filter(
+        .map(
             filename ->
-                filename.lastIndexOf(_extension) == (filename.length() - _extension.length()))
-        .map(filename -> filename.substring(0, filename.lastIndexOf(_extension)))
+                filename.endsWith(_extension)
+                    ? filename.substring(0, filename.lastIndexOf(_extension))
+                    : filename)
+        .distinct()
         .sorted()
         .collect(Collectors.toCollection(ArrayList::new));
   }
@@ -99,13 +335,18 @@ public class ProjectManager {
    * @return A list of projects which involve given date.
    */
   public static ArrayList<String> getListProjectWithData(Instant date) {
-    final Long time_start = date.getEpochSecond() / TimeLogManager.SECONDS_PER_DAY;
+    return getListProjectWithData(_cache_path, date);
+  }
 
-    return getListProject().stream()
-        .filter(
-            project_name ->
-                new ProjectManager(project_name).getGroupedLog().keySet().contains(time_start))
-        .collect(Collectors.toCollection(ArrayList::new));
+  /**
+   * Get the projects in the given root which involve given date.
+   *
+   * @param root The directory for data.
+   * @param date The date.
+   * @return A list of projects which involve given date.
+   */
+  public static ArrayList<String> getListProjectWithData(String root, Instant date) {
+    return getDayIndex(root).getProjects(date.getEpochSecond() / TimeLogManager.SECONDS_PER_DAY);
   }
 
   /**
@@ -114,14 +355,19 @@ public class ProjectManager {
    * @return List of available dates.
    */
   public static ArrayList<Instant> getListDates() {
-    return new ArrayList<>(
-        getListProject().stream()
-            .map(project_name -> new ProjectManager(project_name).getGroupedLog().keySet())
-            .flatMap(set -> set.stream())
-            .distinct()
-            .sorted(Collections.reverseOrder())
-            .map(date -> Instant.ofEpochSecond(date * TimeLogManager.SECONDS_PER_DAY))
-            .collect(Collectors.toCollection(ArrayList::new)));
+    return getListDates(_cache_path);
+  }
+
+  /**
+   * Get all available dates in the given root.
+   *
+   * @param root The directory for data.
+   * @return List of available dates.
+   */
+  public static ArrayList<Instant> getListDates(String root) {
+    return getDayIndex(root).getDays().stream()
+        .map(date -> Instant.ofEpochSecond(date * TimeLogManager.SECONDS_PER_DAY))
+        .collect(Collectors.toCollection(ArrayList::new));
   }
 
   /**
@@ -132,7 +378,23 @@ public class ProjectManager {
   public static void deleteProject(String project_name) {
     assert isProjectAvailable(project_name) : "Project " + project_name + " not found.";
 
-    new File(getLogFilename(project_name)).delete();
+    // the lock file stays, another process may wait for it
+    final ProjectLock lock = ProjectLock.lockExclusive(_cache_path, project_name);
+    try {
+      new File(getLogFilename(_cache_path, project_name)).delete();
+      new File(getBinaryLogFilename(_cache_path, project_name)).delete();
+      SessionJournal.remove(getJournalFilename(_cache_path, project_name));
+      final File directory = new File(getSegmentDirectory(_cache_path, project_name));
+      if (SegmentedLog.exists(directory.getPath())) {
+        for (final File file : directory.listFiles()) {
+          file.delete();
+        }
+        directory.delete();
+      }
+    } finally {
+      lock.close();
+    }
+    ProjectCache.invalidate(project_name);
   }
 
   /**
@@ -141,7 +403,7 @@ public class ProjectManager {
    * @return A map with date (from Posix epoch) as key and list of logs as values.
    */
   public HashMap<Long, ArrayList<Interval>> getGroupedLog() {
-    return _log_manager.getGroupedIntervals();
+    return getLogManager().getGroupedIntervals();
   }
 
   /**
@@ -150,7 +412,41 @@ public class ProjectManager {
    * @return Total time of this project in millisecond.
    */
   public long getTotalTimeMs(ArrayList<Instant> dates) {
-    return _log_manager.getTotalTimeMs(dates);
+    if (_is_loaded) {
+      return _log_manager.getTotalTimeMs(dates);
+    }
+    if (dates == null || dates.isEmpty()) {
+      return _segments.getTotalMsBetweenDays(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+    return dates.stream()
+        .mapToLong(date -> IntervalStore.toEpochDay(date.getEpochSecond()))
+        .distinct()
+        .map(_segments::getTotalMsOnDay)
+        .sum();
+  }
+
+  /**
+   * Get the total time of the intervals starting between the given days, the segments of a
+   * segmented log are not read for it.
+   *
+   * @param day_from The first day from Posix epoch to include.
+   * @param day_to The first day from Posix epoch to exclude.
+   * @return The total time in millisecond.
+   */
+  public long getTotalTimeMsBetweenDays(final long day_from, final long day_to) {
+    return _is_loaded
+        ? _log_manager.getTotalTimeMsBetweenDays(day_from, day_to)
+        : _segments.getTotalMsBetweenDays(day_from, day_to);
+  }
+
+  /** Get the days from Posix epoch on which intervals start, ascending. */
+  public ArrayList<Long> getDays() {
+    return _is_loaded ? _log_manager.getDays() : _segments.getDays();
+  }
+
+  /** Checks whether intervals start on the given day from Posix epoch. */
+  public boolean hasDataOnDay(final long day) {
+    return _is_loaded ? _log_manager.hasDataOnDay(day) : _segments.hasDataOnDay(day);
   }
 
   /**
@@ -162,138 +458,539 @@ public class ProjectManager {
     return Files.exists(Paths.get(getPathLock()));
   }
 
+  /**
+   * Checks whether one project has an unfinished session, without loading the project.
+   *
+   * @param project_name The name of the project.
+   * @return Whether the project is running.
+   */
+  public static boolean isRunning(final String project_name) {
+    return Files.exists(Paths.get(getLockFilename(project_name)));
+  }
+
+  /**
+   * Get the unfinished session of one project from its journal and its lock file. The journal is
+   * replayed once; the lock file may have a later heartbeat, or be the only record if it was
+   * written without journal.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return The session as one line of log, or null if there is none.
+   */
+  private static String getPendingSession(final String root, final String project_name) {
+    final SessionJournal.Session journal =
+        SessionJournal.replay(getJournalFilename(root, project_name));
+    final String record = SessionRecord.read(getLockFilename(root, project_name));
+    if (journal == null) {
+      return record;
+    }
+    long end = journal.getEndSecond();
+    if (!journal.isEnded()
+        && record != null
+        && IntervalCodec.parseStartSecond(record) == journal.getStartSecond()) {
+      end = Math.max(end, IntervalCodec.parseEndSecond(record));
+    }
+    return IntervalCodec.formatInterval(journal.getStartSecond(), end);
+  }
+
+  /**
+   * Get the unfinished session of one project, as start and stop read it.
+   *
+   * @param project_name The name of the project.
+   * @return The session as one line of log, or null if there is none.
+   */
+  public static String getPendingSession(final String project_name) {
+    return getPendingSession(_cache_path, project_name);
+  }
+
+  /**
+   * Checks whether the unfinished session of one project is held by a running process, e.g. the
+   * tracker started with start; a detached session or one left by a crash is not held.
+   *
+   * @param project_name The name of the project.
+   * @return Whether the session is held.
+   */
+  public static boolean isSessionHeld(final String project_name) {
+    return isSessionHeld(_cache_path, project_name);
+  }
+
+  /**
+   * Checks whether the unfinished session of one project in the given root is held by a running
+   * process.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   * @return Whether the session is held.
+   */
+  public static boolean isSessionHeld(final String root, final String project_name) {
+    return SessionRecord.isHeld(getLockFilename(root, project_name));
+  }
+
   public static String getPendingSessionTime(final String project_name) {
-    final List<String> contents = Utils.readFile(new ProjectManager(project_name).getPathLock());
-    assert contents != null && contents.size() == 1
-        : "cannot read the unfinished session for " + project_name;
-    return contents.get(0);
+    final String session = getPendingSession(_cache_path, project_name);
+    assert session != null : "cannot read the unfinished session for " + project_name;
+    return session;
   }
 
-  /** Start this project. */
+  /**
+   * Start this project. An unfinished session held by another process stops the start; one which
+   * is not held, e.g. left by a crash, is logged first.
+   */
   public void start() {
     if (isRunning()) {
-      System.out.println("Another project is running.");
-      System.exit(1);
+      if (isSessionHeld(_root, _name)) {
+        System.out.println("Another process is running this project.");
+        System.exit(1);
+      }
+      finishLastSession(_root, _name);
+      refresh();
     }
 
     _log_manager.addNow();
+    final long start = IntervalStore.toEpochSecond(_log_manager.getStartTime());
     try {
-      updateThisSession();
+      _session_record = new SessionRecord(getPathLock(), start);
+      _journal = new SessionJournal(getJournalFilename(_root, _name));
+      _journal.append(SessionJournal.START, start, start, true);
     } catch (Exception ex) {
       System.out.println("Cannot establish lock file, thus cannot start.");
       System.exit(1);
     }
   }
 
-  /** End this project and log the time. */
+  /**
+   * End this project and log the time. The closed session is appended to the log as one record;
+   * if the file was changed since it was read, it is read again under the lock and the whole log
+   * is only rewritten (compacted) when it cannot be appended. If the session is started here, its
+   * end is in the journal before the log is written, and the journal is removed once the session
+   * is logged.
+   */
   public void end() {
     assert isRunning() : "cannot end a session which is not started";
 
+    if (_session_record != null) {
+      _session_record.close();
+    }
+    final IntervalStore intervals = _log_manager.getIntervalStore();
+    if (_journal != null && intervals.size() > _log_manager.getCountPersisted()) {
+      final int last = intervals.size() - 1;
+      _journal.append(
+          SessionJournal.END, intervals.getStartSecond(last), intervals.getEndSecond(last), true);
+    }
+    final ProjectLock lock = ProjectLock.lockExclusive(_root, _name);
     try {
-      _mutex.acquire();
-      _log_manager.updateLog(_filename);
+      if (_segments != null) {
+        // another process may have appended since the manifest was read, it must be kept
+        final SegmentedLog segments = new SegmentedLog(_segments.getDirectory());
+        final boolean is_changed = segments.getFirstChangedMonth(_segments) != null;
+        if (!_log_manager.appendSegments(segments)) {
+          assert 1 == 2 : "error appending the interval to the segments";
+        }
+        _segments = segments;
+        if (is_changed && _is_loaded) {
+          // the sessions of the other process are read again when needed
+          _log_manager = new TimeLogManager();
+          _is_loaded = false;
+        }
+      } else {
+        _log_manager.mergeLog(_filename);
+      }
     } catch (Exception ex) {
       assert 1 == 2 : "error updating the log for interval";
     } finally {
-      _mutex.release();
+      lock.close();
     }
+    if (_journal != null) {
+      _journal.append(SessionJournal.COMMIT, 0l, 0l, false);
+      _journal.close();
+      _journal = null;
+      SessionJournal.remove(getJournalFilename(_root, _name));
+    }
+
+    // the days of this project are known, so the index needs no parsing
+    DayIndex.put(_root, _name, getLogSignature(_root, _name), this);
 
     deleteLock();
   }
 
-  /** Get the log manager to access logged intervals. */
+  /** Get the directory for data (root) of the projects given only by name. */
+  public static String getDefaultRoot() {
+    return _cache_path;
+  }
+
+  /** Get the directory for data (root) of this project. */
+  public String getRoot() {
+    return _root;
+  }
+
+  /** Get the name of this project. */
+  public String getName() {
+    return _name;
+  }
+
+  /** Get the log manager to access logged intervals, all segments are read if not yet. */
   public TimeLogManager getLogManager() {
+    if (!_is_loaded) {
+      loadSegments();
+    }
     return _log_manager;
   }
 
+  /** Read all segments of the segmented log, once also if the project is shared. */
+  private synchronized void loadSegments() {
+    if (_is_loaded) {
+      return;
+    }
+    final ProjectLock lock = ProjectLock.lockShared(_root, _name);
+    try {
+      _log_manager.readSegments(_segments, _segments.getMonths());
+    } finally {
+      lock.close();
+    }
+    _is_loaded = true;
+  }
+
+  /**
+   * Get the intervals of the given days. The loaded intervals are used if all segments are read;
+   * otherwise only the segments of the days are read, without keeping them.
+   *
+   * @param days The days from Posix epoch, ascending.
+   * @return The store containing at least the intervals of the days.
+   */
+  private IntervalStore getIntervalStore(final List<Long> days) {
+    if (_is_loaded || days.isEmpty()) {
+      return _log_manager.getIntervalStore();
+    }
+    TimeLogManager log_manager = new TimeLogManager();
+    final ProjectLock lock = ProjectLock.lockShared(_root, _name);
+    try {
+      log_manager.readSegments(
+          _segments, _segments.getMonthsBetweenDays(days.get(0), days.get(days.size() - 1) + 1l));
+    } finally {
+      lock.close();
+    }
+    return log_manager.getIntervalStore();
+  }
+
+  /**
+   * Update the end time of the unfinished session in the lock file. If this project is started
+   * here, it is one heartbeat on the mapped record, which goes to the journal when the record is
+   * forced; otherwise the lock file is written again.
+   */
   public void updateThisSession() {
+    if (_session_record != null) {
+      if (_session_record.beat() && _journal != null) {
+        _journal.append(
+            SessionJournal.BEAT,
+            _session_record.getStartSecond(),
+            _session_record.getEndSecond(),
+            false);
+      }
+      return;
+    }
+    final ProjectLock lock = ProjectLock.lockExclusive(_root, _name);
     try {
-      _mutex.acquire();
       _log_manager.updateThisSession(getPathLock());
     } catch (Exception er) {
       assert 1 == 2 : "error updating the log with unfinished session";
     } finally {
-      _mutex.release();
+      lock.close();
     }
   }
 
   /**
-   * Show the simple summary of a project.
+   * Get the days to summarize, which are the days with intervals in the preferred days.
    *
-   * @param preferred_dates Which days to summarize.
+   * @param preferred_dates Which days to summarize, null for all days of this project.
+   * @return The days from epoch, ascending and distinct.
    */
-  public String getProjectSummary(ArrayList<Instant> preferred_dates) {
-    final HashMap<Long, ArrayList<Interval>> grouped_log = getGroupedLog();
+  public ArrayList<Long> getSummaryDays(ArrayList<Instant> preferred_dates) {
+    if (preferred_dates == null) {
+      return getDays();
+    }
+    return preferred_dates.stream()
+        .map(date -> (date.getEpochSecond() / TimeLogManager.SECONDS_PER_DAY))
+        .distinct()
+        .filter(this::hasDataOnDay)
+        .sorted()
+        .collect(Collectors.toCollection(ArrayList::new));
+  }
 
-    final ArrayList<Instant> dates =
-        (preferred_dates != null) ? preferred_dates : ProjectManager.getListDates();
+  /**
+   * Append the summary of the given days, each day with its total time and its intervals.
+   *
+   * @param text The text to append to.
+   * @param days The days from epoch, ascending.
+   * @return The given text.
+   */
+  public StringBuilder appendSummary(final StringBuilder text, final List<Long> days) {
+    final IntervalStore store = getIntervalStore(days);
+    final String eol = System.lineSeparator();
+    for (final long day : days) {
+      text.append(LocalDate.ofEpochDay(day).toString())
+          .append(' ')
+          .append(Interval.formatDuration(Duration.ofMillis(store.getTotalMsOnDay(day))))
+          .append(eol);
 
-    final ArrayList<Long> dates_as_key =
-        dates.stream()
-            .map(date -> (date.getEpochSecond() / TimeLogManager.SECONDS_PER_DAY))
-            .collect(Collectors.toCollection(ArrayList::new));
+      final int index_to = store.indexOfDay(day + 1l);
+      for (int i = store.indexOfDay(day); i < index_to; ++i) {
+        text.append(store.format(i));
+        if (i + 1 < index_to) {
+          text.append(eol);
+        }
+      }
 
-    final ArrayList<Long> keys =
-        new ArrayList<>(grouped_log.keySet())
-            .stream()
-                .filter(date -> dates_as_key.contains(date))
-                .sorted()
-                .collect(Collectors.toCollection(ArrayList::new));
+      text.append(eol).append(eol);
+    }
+    return text;
+  }
 
-    final String eol = System.lineSeparator();
-    String text = "";
-    for (final Long day : keys) {
-      text += Instant.ofEpochSecond(day * TimeLogManager.SECONDS_PER_DAY).toString().split("T")[0];
+  /**
+   * Get the number of pages of the summary of the given days.
+   *
+   * @param days The days from epoch to summarize.
+   * @return The number of pages.
+   */
+  public static int getSummaryPageCount(final List<Long> days) {
+    return (days.size() + SUMMARY_PAGE_DAYS - 1) / SUMMARY_PAGE_DAYS;
+  }
 
-      final long duration_ms =
-          grouped_log.get(day).stream().map(Interval::getDurationMs).mapToLong(l -> l).sum();
+  /**
+   * Get one page of the summary of the given days.
+   *
+   * @param days The days from epoch to summarize, ascending.
+   * @param page The index of the page.
+   * @return The summary of the days in this page.
+   */
+  public String getSummaryPage(final List<Long> days, final int page) {
+    final int index_from = Math.min(days.size(), page * SUMMARY_PAGE_DAYS);
+    final int index_to = Math.min(days.size(), index_from + SUMMARY_PAGE_DAYS);
+    return appendSummary(new StringBuilder(), days.subList(index_from, index_to)).toString();
+  }
 
-      text += " " + Interval.formatDuration(Duration.ofMillis(duration_ms)) + eol;
+  /**
+   * Show the simple summary of a project.
+   *
+   * @param preferred_dates Which days to summarize, null for all days of this project.
+   */
+  public String getProjectSummary(ArrayList<Instant> preferred_dates) {
+    return appendSummary(new StringBuilder(), getSummaryDays(preferred_dates)).toString();
+  }
 
-      text +=
-          String.join(
-              eol,
-              grouped_log.get(day).stream()
-                  .map(interval -> interval.formatInterval())
-                  .collect(Collectors.toList()));
+  public ProjectManager(String project_name) {
+    this(_cache_path, project_name);
+  }
 
-      text += eol + eol;
+  /**
+   * Load one project in the given directory for data.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of the project.
+   */
+  public ProjectManager(String root, String project_name) {
+    prepareDirectory(root);
+
+    _root = root;
+
+    _name = project_name;
+
+    _filename = getLogFilename(root, project_name);
+
+    final ProjectLock lock = ProjectLock.lockShared(root, project_name);
+    try {
+      if (isSegmented(root, project_name)
+          || (_is_segmented_default && !Files.exists(Paths.get(_filename)))) {
+        // the segments are read when the intervals are needed, days and totals are in the manifest
+        _segments = new SegmentedLog(getSegmentDirectory(root, project_name));
+        _is_loaded = false;
+        return;
+      }
+      if (isBinaryLogNewer()
+          && _log_manager.readBinaryLog(getBinaryLogFilename(_root, _name), _filename)) {
+        return;
+      }
+      if (isProjectAvailable()) {
+        _log_manager.readLog(_filename);
+      }
+    } finally {
+      lock.close();
     }
-    return text;
   }
 
-  public ProjectManager(String project_name) {
-    prepareDirectory();
+  /**
+   * Copy one loaded project and bring it up to date with its files, the given project is not
+   * modified. If only new sessions were appended to the log, only those are read.
+   *
+   * @param previous The project loaded earlier.
+   */
+  public ProjectManager(final ProjectManager previous) {
+    _root = previous._root;
+    _name = previous._name;
+    _filename = previous._filename;
+    synchronized (previous) {
+      _segments = previous._segments;
+      _is_loaded = previous._is_loaded;
+      _log_manager = new TimeLogManager(previous._log_manager);
+    }
+    refresh();
+  }
 
-    _name = project_name;
+  /** Bring the loaded logs up to date with the files of this project. */
+  public void refresh() {
+    final ProjectLock lock = ProjectLock.lockShared(_root, _name);
+    try {
+      if (_segments != null) {
+        final SegmentedLog segments = new SegmentedLog(_segments.getDirectory());
+        if (_is_loaded) {
+          _log_manager.refreshSegments(_segments, segments);
+        }
+        _segments = segments;
+        return;
+      }
+      if (isBinaryLogNewer()
+          && _log_manager.readBinaryLog(getBinaryLogFilename(_root, _name), _filename)) {
+        return;
+      }
+      _log_manager.refreshLog(_filename);
+    } finally {
+      lock.close();
+    }
+  }
 
-    _filename = getLogFilename(project_name);
+  /**
+   * Release the record of the session started here without ending it, the session is ended later
+   * by stopProject, possibly in another process.
+   */
+  public void detach() {
+    if (_session_record != null) {
+      _session_record.close();
+      _session_record = null;
+    }
+    if (_journal != null) {
+      _journal.close();
+      _journal = null;
+    }
+  }
 
-    if (isProjectAvailable()) {
-      _log_manager.readLog(_filename);
+  /**
+   * End the unfinished session of one project now and log it, also if it runs in another process.
+   *
+   * @param project_name The name of this project.
+   * @return Whether there was an unfinished session.
+   */
+  public static boolean stopProject(final String project_name) {
+    final String session = getPendingSession(_cache_path, project_name);
+    if (session == null) {
+      return false;
     }
+    final long start = IntervalCodec.parseStartSecond(session);
+    final long end = IntervalStore.toEpochSecond(LocalDateTime.now());
+    if (end <= start) {
+      // a session shorter than one second cannot be logged
+      SessionJournal.remove(getJournalFilename(_cache_path, project_name));
+      new File(getLockFilename(project_name)).delete();
+      return true;
+    }
+    endInJournal(project_name, start, end);
+    finishLastSession(project_name);
+    return true;
   }
 
   public void deleteLock() {
     new File(getPathLock()).delete();
   }
 
-  public static void finishLastSession(final String project_name) {
-    ProjectManager project = new ProjectManager(project_name);
-    final String path_lock = project.getPathLock();
-    final String path_log = getLogFilename(project_name);
-    if (project.isRunning()) {
-      assert new File(path_lock).exists() : String.format("file %s cannot be found", path_lock);
-      final int count_line_before = Utils.countFileLine(path_log);
+  /**
+   * Append the end of the unfinished session of one project to its journal.
+   *
+   * @param project_name The name of this project.
+   * @param start The start of the session in seconds from epoch.
+   * @param end The end of the session in seconds from epoch.
+   * @return Whether the end is in the journal.
+   */
+  private static boolean endInJournal(final String project_name, final long start, final long end) {
+    try (SessionJournal journal =
+        new SessionJournal(getJournalFilename(_cache_path, project_name))) {
+      return journal.append(SessionJournal.END, start, end, true);
+    } catch (Exception ex) {
+      assert 1 == 2 : "error writing the journal of " + project_name;
+      return false;
+    }
+  }
+
+  /**
+   * Append one session to the end of the log of one project, unless it is the last logged session
+   * already; only the end of the log is read. Thus the session is logged once also if the recovery
+   * is interrupted and repeated.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @param start The start of the session in seconds from epoch.
+   * @param end The end of the session in seconds from epoch.
+   * @return Whether the session is in the log.
+   */
+  private static boolean appendSession(
+      final String root, final String project_name, final long start, final long end) {
+    final String filename = getLogFilename(root, project_name);
+    final ProjectLock lock = ProjectLock.lockExclusive(root, project_name);
+    try {
+      if (isSegmented(root, project_name)
+          || (_is_segmented_default && !Files.exists(Paths.get(filename)))) {
+        return new SegmentedLog(getSegmentDirectory(root, project_name))
+            .appendSession(start, end);
+      }
+
+      final String last = Utils.readLastLine(filename, IntervalCodec.LENGTH_INTERVAL);
+      if (last != null && IntervalCodec.parseStartSecond(last) == start) {
+        return true;
+      }
+      if (last != null && IntervalCodec.parseEndSecond(last) >= start) {
+        assert 1 == 2 : "unfinished session of " + project_name + " is before the logged sessions";
+        return false;
+      }
+      final String line = IntervalCodec.formatInterval(start, end);
+      return Utils.appendFile(
+          filename,
+          Utils.isFileTerminated(filename) ? Arrays.asList(line) : Arrays.asList("", line));
+    } finally {
+      lock.close();
+    }
+  }
 
-      project.getLogManager().addLog(path_lock);
-      project.end();
+  /**
+   * Log the unfinished session of one project, if there is any. The session is replayed from the
+   * journal and appended to the log without loading the project, then the journal and the lock
+   * file are removed; the cost does not depend on the length of the log.
+   *
+   * @param project_name The name of this project.
+   * @return Whether there was an unfinished session.
+   */
+  public static boolean finishLastSession(final String project_name) {
+    return finishLastSession(_cache_path, project_name);
+  }
 
-      final int count_line_after = Utils.countFileLine(path_log);
-      assert (count_line_before + 1) == count_line_after
-          : "after updateThisSession one more session should be in log";
+  /**
+   * Log the unfinished session of one project in the given root, see finishLastSession.
+   *
+   * @param root The directory for data.
+   * @param project_name The name of this project.
+   * @return Whether there was an unfinished session.
+   */
+  public static boolean finishLastSession(final String root, final String project_name) {
+    final String path_lock = getLockFilename(root, project_name);
+    final String session = getPendingSession(root, project_name);
+    if (session != null) {
+      final long start = IntervalCodec.parseStartSecond(session);
+      final long end = IntervalCodec.parseEndSecond(session);
+      if (end > start && !appendSession(root, project_name, start, end)) {
+        assert 1 == 2 : "error logging the unfinished session of " + project_name;
+        return false;
+      }
     }
+    SessionJournal.remove(getJournalFilename(root, project_name));
+    new File(path_lock).delete();
     assert !(new File(path_lock).exists()) : String.format("file %s should be deleted", path_lock);
+    return session != null;
   }
 
   /**
@@ -302,12 +999,16 @@ public class ProjectManager {
    * @param project_name The name of project to start.
    */
   public static void startProject(final String project_name) {
-    ProjectManager project = new ProjectManager(project_name);
+    final ProjectManager project = new ProjectManager(project_name);
     project.start();
     Runtime.getRuntime()
         .addShutdownHook(
             new Thread() {
               public void run() {
+                // the session may be stopped by another process already
+                if (!project.isRunning()) {
+                  return;
+                }
                 System.out.println(
                     String.format(
                         "project %s ends at %s", project_name, LocalDateTime.now().toString()));
@@ -318,7 +1019,7 @@ public class ProjectManager {
 
     while (project.isRunning()) {
       try {
-        Thread.sleep(300l * 1000l);
+        Thread.sleep(_seconds_heartbeat * 1000l);
         project.updateThisSession();
       } catch (InterruptedException ex) {
         assert 1 == 2 : "Sleep interrupted! Check date time!";
@@ -327,16 +1028,19 @@ public class ProjectManager {
   }
 
   public static void skipPendingSessionAndStart(final String project_name) {
-    new ProjectManager(project_name).deleteLock();
+    SessionJournal.remove(getJournalFilename(_cache_path, project_name));
+    new File(getLockFilename(project_name)).delete();
     startProject(project_name);
   }
 
   public static void finishPendingSessionAndStart(
       final String project_name, final String pending_session_info) {
-    TimeLogManager.updateThisSession(
-        new ProjectManager(project_name).getPathLock(), pending_session_info);
+    final long start = IntervalCodec.parseStartSecond(pending_session_info);
+    final long end = IntervalCodec.parseEndSecond(pending_session_info);
+    if (end > start) {
+      endInJournal(project_name, start, end);
+    }
     finishLastSession(project_name);
-    new ProjectManager(project_name).deleteLock();
     startProject(project_name);
   }
 }
@@ -5,9 +5,7 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -27,113 +25,140 @@ public class ProjectReporter {
   private final String _name;
   private final Duration _should_duration;
 
-  private List<String> createGreeting() {
-    List<String> content = new LinkedList<String>();
+  /**
+   * Write one line of the document.
+   *
+   * @param writer The writer for the document.
+   * @param content The content of this line.
+   */
+  private static void writeLine(final Writer writer, final String content) throws IOException {
+    writer.write(content);
+    writer.write(_sep);
+  }
+
+  private void writeGreeting(final Writer writer) throws IOException {
     final String formatted_date =
         String.format("\\qr \\sb300 {\\loch %s}", Interval.formatDate(LocalDateTime.now()));
-    content.add(formatted_date);
-    content.add(String.format("\\par \\pard \\sb300 \\plain {\\loch Dear %s,}", _name));
-    return content;
+    writeLine(writer, formatted_date);
+    writeLine(writer, String.format("\\par \\pard \\sb300 \\plain {\\loch Dear %s,}", _name));
   }
 
   private static String formatCell(final String content) {
     return "\\intbl " + content + " \\cell";
   }
 
-  private List<String> createTable() {
-    final Map<Long, ArrayList<Interval>> intervals_per_day = _time_manager.getGroupedIntervals();
-    List<Long> sorted_days = new ArrayList<>(intervals_per_day.keySet());
-    Collections.sort(sorted_days);
+  /**
+   * Write the table of intervals while walking through the days, so that the intervals are not
+   * collected before writing.
+   *
+   * @param writer The writer for the document.
+   */
+  private void writeTable(final Writer writer) throws IOException {
+    final IntervalStore intervals = _time_manager.getIntervalStore();
 
-    assert !sorted_days.isEmpty() : "not interval found for the report";
+    assert !intervals.isEmpty() : "not interval found for the report";
 
-    final String start_date_str =
-        Interval.formatDate(intervals_per_day.get(sorted_days.get(0)).get(0).getStartTime());
+    final String start_date_str = Interval.formatDate(intervals.get(0).getStartTime());
     final String end_date_str =
-        Interval.formatDate(
-            intervals_per_day.get(sorted_days.get(sorted_days.size() - 1)).get(0).getStartTime());
+        Interval.formatDate(intervals.get(intervals.size() - 1).getStartTime());
 
-    List<String> table = new LinkedList<String>();
-    table.add(
+    writeLine(
+        writer,
         String.format(
             "\\par \\pard \\sb300 \\sa300 \\plain {\\loch your working time in %s from %s to %s is as follows:}",
             _project_name, start_date_str, end_date_str));
-    table.add("\\par \\sb200 \\qc");
+    writeLine(writer, "\\par \\sb200 \\qc");
     final long should_millis = _should_duration.toMillis();
     long balance = 0l;
     long total_time = 0l;
+    int count_day = 0;
     final int[] right_bounds = new int[] {700, 1600, 2500, 3400, 4400, 5400};
-    final String cell_def =
-        Arrays.stream(right_bounds)
-            .mapToObj(i -> "\\cellx" + Integer.toString(i))
-            .reduce("", (s, a) -> s + a);
-
-    table.add("\\trowd \\trqc " + cell_def + _sep);
-    table.add(formatCell("Date"));
-    table.add(formatCell("Start"));
-    table.add(formatCell("End"));
-    table.add(formatCell("Elapsed"));
-    table.add(formatCell("Sum"));
-    table.add(formatCell("Change"));
-    table.add("\\row \\pard" + _sep);
-    for (final Long day : sorted_days) {
-      final ArrayList<Interval> intervals_in_day = intervals_per_day.get(day);
-      final long elapsed_millis =
-          intervals_in_day.stream().map(Interval::getDurationMs).mapToLong(l -> l).sum();
+    StringBuilder cell_def_builder = new StringBuilder();
+    for (final int right_bound : right_bounds) {
+      cell_def_builder.append("\\cellx").append(right_bound);
+    }
+    final String cell_def = cell_def_builder.toString();
+
+    writeLine(writer, "\\trowd \\trqc " + cell_def + _sep);
+    writeLine(writer, formatCell("Date"));
+    writeLine(writer, formatCell("Start"));
+    writeLine(writer, formatCell("End"));
+    writeLine(writer, formatCell("Elapsed"));
+    writeLine(writer, formatCell("Sum"));
+    writeLine(writer, formatCell("Change"));
+    writeLine(writer, "\\row \\pard" + _sep);
+    int index_begin = 0;
+    while (index_begin < intervals.size()) {
+      // the intervals are ordered, so the intervals of one day are next to each other
+      final long day = intervals.getStartDay(index_begin);
+      long elapsed_millis = 0l;
+      int index_end = index_begin;
+      while (index_end < intervals.size() && intervals.getStartDay(index_end) == day) {
+        elapsed_millis += intervals.getDurationMs(index_end);
+        ++index_end;
+      }
+
       String text_day_sum = Interval.formatDuration(Duration.ofMillis(elapsed_millis));
-      String text_date = intervals_in_day.get(0).formatDateInYear();
+      String text_date = intervals.get(index_begin).formatDateInYear();
       String text_delta = Interval.formatDurationMillis(elapsed_millis - should_millis);
       balance += (elapsed_millis - should_millis);
       total_time += elapsed_millis;
-
-      for (final Interval interval : intervals_in_day) {
-        table.add("\\trowd \\trqc " + cell_def);
-        table.add(formatCell(text_date));
-        table.add(formatCell(Interval.formatClockTime(interval.getStartTime())));
-        table.add(formatCell(Interval.formatClockTime(interval.getEndTime())));
-        table.add(formatCell(interval.formatDuration()));
-        table.add(formatCell(text_day_sum));
-        table.add(formatCell(text_delta));
-        table.add("\\row \\pard");
+      ++count_day;
+
+      for (int i = index_begin; i < index_end; ++i) {
+        final Interval interval = intervals.get(i);
+        writeLine(writer, "\\trowd \\trqc " + cell_def);
+        writeLine(writer, formatCell(text_date));
+        writeLine(writer, formatCell(Interval.formatClockTime(interval.getStartTime())));
+        writeLine(writer, formatCell(Interval.formatClockTime(interval.getEndTime())));
+        writeLine(writer, formatCell(interval.formatDuration()));
+        writeLine(writer, formatCell(text_day_sum));
+        writeLine(writer, formatCell(text_delta));
+        writeLine(writer, "\\row \\pard");
 
         text_date = "";
         text_day_sum = "";
         text_delta = "";
       }
+      index_begin = index_end;
     }
     final String summary =
         String.format(
             "The total working time for the %d days with time tracking is %s, the balance for this period is %s (with %s planned per day).",
-            intervals_per_day.size(),
+            count_day,
             Interval.removeSpaces(Interval.formatDuration(Duration.ofMillis(total_time))),
             Interval.formatDurationMillis(balance),
             Interval.formatDuration(_should_duration).replace(" ", ""));
-    table.add("\\par \\pard \\sb300 \\plain {\\loch " + summary + "}" + _sep);
-    return table;
+    writeLine(writer, "\\par \\pard \\sb300 \\plain {\\loch " + summary + "}" + _sep);
   }
 
-  private List<String> createGreetingAgain() {
-    List<String> contents = new LinkedList<String>();
-    contents.add("\\par \\pard \\sb300 \\plain {\\loch Sincerely yours}");
-    contents.add("\\par \\pard \\sb300 \\plain {\\loch ProjectTimeManager from t-lou}");
-    return contents;
+  private void writeGreetingAgain(final Writer writer) throws IOException {
+    writeLine(writer, "\\par \\pard \\sb300 \\plain {\\loch Sincerely yours}");
+    writeLine(writer, "\\par \\pard \\sb300 \\plain {\\loch ProjectTimeManager from t-lou}");
   }
 
+  /**
+   * Write the report to the file with given name. The document is written while it is created,
+   * so that the memory usage does not grow with the number of days.
+   *
+   * @param filename The filename of the report.
+   */
   public void output(final String filename) {
-    List<String> contents = new LinkedList<String>();
-
-    contents.add(_doc_head);
-    contents.add("");
-    contents.addAll(createGreeting());
-    contents.add("");
-    contents.addAll(createTable());
-    contents.add("");
-    contents.addAll(createGreetingAgain());
-    contents.add("");
-    contents.add(_doc_end);
-    contents.add("");
-
-    Utils.writeFile(filename, contents);
+    try (BufferedWriter writer =
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(filename, false)))) {
+      writeLine(writer, _doc_head);
+      writeLine(writer, "");
+      writeGreeting(writer);
+      writeLine(writer, "");
+      writeTable(writer);
+      writeLine(writer, "");
+      writeGreetingAgain(writer);
+      writeLine(writer, "");
+      writeLine(writer, _doc_end);
+      writeLine(writer, "");
+    } catch (Exception ex) {
+      assert 1 == 2 : ("error writing report to " + filename);
+    }
   }
 
   public static boolean isConfigReady() {
@@ -185,7 +210,7 @@ public class ProjectReporter {
 
   public ProjectReporter(final String project_name) {
     _project_name = project_name;
-    _time_manager = new ProjectManager(project_name).getLogManager();
+    _time_manager = ProjectCache.get(project_name).getLogManager();
 
     final HashMap<String, String> config = loadConfigItems();
     _name = config.get(_key_name);
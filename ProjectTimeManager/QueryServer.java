@@ -0,0 +1,409 @@
+package ProjectTimeManager;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/// This class serves the projects as JSON over HTTP on localhost, for reading only. The requests
+/// run in parallel on the shared projects of ProjectCache, which are not modified once loaded and
+/// are loaded again when their files change, so that many requests cost one parse.
+public class QueryServer {
+  /** The port if none is given, can be set with -Dptm.server.port. */
+  public static final int DEFAULT_PORT = Integer.getInteger("ptm.server.port", 8520);
+
+  /** The number of threads for requests, can be set with -Dptm.server.threads. */
+  private static final int _count_thread =
+      Integer.getInteger("ptm.server.threads", Runtime.getRuntime().availableProcessors());
+
+  /** The server, bound to the loopback address. */
+  private final HttpServer _server;
+
+  /** The threads for requests. */
+  private final ExecutorService _executor;
+
+  /** An error which is answered with its HTTP status. */
+  private static class RequestException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /** The HTTP status. */
+    private final int _status;
+
+    private RequestException(final int status, final String message) {
+      super(message);
+      _status = status;
+    }
+  }
+
+  /**
+   * Create the server, it accepts requests after start.
+   *
+   * @param port The port on localhost, 0 for any free port.
+   * @throws Exception If the port cannot be bound.
+   */
+  public QueryServer(final int port) throws Exception {
+    _server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    _executor = Executors.newFixedThreadPool(Math.max(1, _count_thread));
+    _server.setExecutor(_executor);
+    _server.createContext("/", this::handle);
+  }
+
+  /** Start accepting requests. */
+  public void start() {
+    _server.start();
+  }
+
+  /** Stop accepting requests and wait shortly for the running ones. */
+  public void stop() {
+    _server.stop(1);
+    _executor.shutdown();
+  }
+
+  /** Get the port of this server. */
+  public int getPort() {
+    return _server.getAddress().getPort();
+  }
+
+  /**
+   * Answer one request.
+   *
+   * @param exchange The request and its response.
+   */
+  private void handle(final HttpExchange exchange) {
+    int status = 200;
+    String body;
+    try {
+      if (!exchange.getRequestMethod().equals("GET")) {
+        throw new RequestException(405, "only GET is supported");
+      }
+      body = answer(exchange.getRequestURI().getPath(), getQuery(exchange));
+    } catch (RequestException ex) {
+      status = ex._status;
+      body = "{\"error\":" + quote(ex.getMessage()) + "}";
+    } catch (Throwable ex) {
+      // also a failed assertion while loading, the client gets an answer in any case
+      status = 500;
+      body = "{\"error\":" + quote(String.valueOf(ex.getMessage())) + "}";
+    }
+
+    try {
+      final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+      exchange.sendResponseHeaders(status, bytes.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(bytes);
+      }
+    } catch (Exception ex) {
+      // the client is gone
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Get the parameters in the query of the request.
+   *
+   * @param exchange The request.
+   * @return The parameters by name.
+   */
+  private static HashMap<String, String> getQuery(final HttpExchange exchange) throws Exception {
+    HashMap<String, String> query = new HashMap<>();
+    final String text = exchange.getRequestURI().getRawQuery();
+    if (text == null) {
+      return query;
+    }
+    for (final String pair : text.split("&")) {
+      final int pos = pair.indexOf('=');
+      if (pos > 0) {
+        query.put(
+            URLDecoder.decode(pair.substring(0, pos), "UTF-8"),
+            URLDecoder.decode(pair.substring(pos + 1), "UTF-8"));
+      }
+    }
+    return query;
+  }
+
+  /**
+   * Get the answer for the path of one request.
+   *
+   * @param path The path.
+   * @param query The parameters.
+   * @return The answer in JSON.
+   */
+  private static String answer(final String path, final HashMap<String, String> query) {
+    final String[] slices = path.replaceAll("^/+|/+$", "").split("/");
+    if (slices.length == 1 && slices[0].equals("projects")) {
+      return answerProjects();
+    }
+    if (slices.length == 2 && slices[0].equals("projects")) {
+      return answerProject(getProject(slices[1]));
+    }
+    if (slices.length == 3 && slices[0].equals("projects") && slices[2].equals("rollups")) {
+      return answerRollups(getProject(slices[1]), query);
+    }
+    if (slices.length == 1 && slices[0].equals("totals")) {
+      return answerTotals(query);
+    }
+    if (slices.length == 1 && slices[0].equals("dates")) {
+      return answerDates();
+    }
+    if (slices.length == 1 && slices[0].equals("sessions")) {
+      return answerSessions();
+    }
+    if (slices.length == 1 && slices[0].equals("stats")) {
+      return "{\"cache\":" + quote(ProjectCache.getStatistics()) + "}";
+    }
+    throw new RequestException(
+        404, "unknown path, use /projects, /projects/NAME, /projects/NAME/rollups, "
+            + "/totals, /dates, /sessions or /stats");
+  }
+
+  /**
+   * Get the loaded project.
+   *
+   * @param project_name The name of the project.
+   * @return The shared project.
+   */
+  private static ProjectManager getProject(final String project_name) {
+    if (project_name.isEmpty()
+        || project_name.contains("..")
+        || !ProjectManager.isProjectAvailable(project_name)) {
+      throw new RequestException(404, "project not found: " + project_name);
+    }
+    return ProjectCache.get(project_name);
+  }
+
+  /**
+   * Get the names of all projects in pages which fit in the cache, the projects of one page are
+   * loaded at once and the cache does not grow with the number of projects.
+   *
+   * @return The pages of project names.
+   */
+  private static ArrayList<List<String>> getProjectPages() {
+    final ArrayList<String> project_names = ProjectManager.getListProject();
+    final int size_page = Math.max(1, ProjectCache.getCapacity());
+    ArrayList<List<String>> pages = new ArrayList<>();
+    for (int i = 0; i < project_names.size(); i += size_page) {
+      pages.add(project_names.subList(i, Math.min(project_names.size(), i + size_page)));
+    }
+    return pages;
+  }
+
+  /**
+   * Read the day in the parameters.
+   *
+   * @param query The parameters.
+   * @param key The name of the parameter.
+   * @param fallback The day if the parameter is not given.
+   * @return The day.
+   */
+  private static LocalDate getDate(
+      final HashMap<String, String> query, final String key, final LocalDate fallback) {
+    final String text = query.get(key);
+    if (text == null) {
+      return fallback;
+    }
+    try {
+      return LocalDate.parse(text);
+    } catch (Exception ex) {
+      throw new RequestException(400, key + " should be yyyy-MM-dd: " + text);
+    }
+  }
+
+  /**
+   * Quote the text as JSON string.
+   *
+   * @param text The text.
+   * @return The JSON string.
+   */
+  private static String quote(final String text) {
+    StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+    for (int i = 0; i < text.length(); ++i) {
+      final char ch = text.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        quoted.append('\\').append(ch);
+      } else if (ch < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) ch));
+      } else {
+        quoted.append(ch);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+
+  /**
+   * Get the unfinished session of one project in JSON.
+   *
+   * @param project_name The name of the project.
+   * @return The session with start and end, or null.
+   */
+  private static String getSessionJson(final String project_name) {
+    final String session = ProjectManager.getPendingSession(project_name);
+    if (session == null) {
+      return "null";
+    }
+    return "{\"start\":"
+        + quote(session.substring(0, IntervalCodec.LENGTH_TIME))
+        + ",\"end\":"
+        + quote(session.substring(IntervalCodec.LENGTH_INTERVAL - IntervalCodec.LENGTH_TIME))
+        + "}";
+  }
+
+  /** Get the projects with total time and whether they are running. */
+  private static String answerProjects() {
+    StringBuilder json = new StringBuilder("[");
+    for (final List<String> page : getProjectPages()) {
+      for (final ProjectManager project : ProjectCache.getAll(page)) {
+        if (json.length() > 1) {
+          json.append(',');
+        }
+        json.append("{\"name\":")
+            .append(quote(project.getName()))
+            .append(",\"total_ms\":")
+            .append(project.getTotalTimeMs(null))
+            .append(",\"running\":")
+            .append(ProjectManager.isRunning(project.getName()))
+            .append('}');
+      }
+    }
+    return json.append(']').toString();
+  }
+
+  /** Get the details of one project. */
+  private static String answerProject(final ProjectManager project) {
+    final IntervalStore store = project.getLogManager().getIntervalStore();
+    final ArrayList<Long> days = project.getLogManager().getDays();
+    return "{\"name\":"
+        + quote(project.getName())
+        + ",\"total_ms\":"
+        + store.getTotalMs()
+        + ",\"count\":"
+        + store.size()
+        + ",\"first_day\":"
+        + (days.isEmpty() ? "null" : quote(LocalDate.ofEpochDay(days.get(0)).toString()))
+        + ",\"last_day\":"
+        + (days.isEmpty()
+            ? "null"
+            : quote(LocalDate.ofEpochDay(days.get(days.size() - 1)).toString()))
+        + ",\"session\":"
+        + getSessionJson(project.getName())
+        + "}";
+  }
+
+  /**
+   * Get the rollups of one project, the parameters are from and to (excluded) as yyyy-MM-dd and
+   * period as day, week, month or year; the days of the project are used if not given. The range
+   * is clamped to the days of the project, thus the number of rollups is bounded by its data.
+   */
+  private static String answerRollups(
+      final ProjectManager project, final HashMap<String, String> query) {
+    Rollup.Period period = Rollup.Period.DAY;
+    if (query.containsKey("period")) {
+      try {
+        period = Rollup.Period.valueOf(query.get("period").toUpperCase());
+      } catch (IllegalArgumentException ex) {
+        throw new RequestException(400, "period should be day, week, month or year");
+      }
+    }
+    final ArrayList<Long> days = project.getDays();
+    LocalDate date_from = getDate(query, "from", null);
+    LocalDate date_to = getDate(query, "to", null);
+    if (days.isEmpty()) {
+      return "[]";
+    }
+    final LocalDate date_first = LocalDate.ofEpochDay(days.get(0));
+    final LocalDate date_end = LocalDate.ofEpochDay(days.get(days.size() - 1) + 1l);
+    if (date_from == null || date_from.isBefore(date_first)) {
+      date_from = date_first;
+    }
+    if (date_to == null || date_to.isAfter(date_end)) {
+      date_to = date_end;
+    }
+
+    StringBuilder json = new StringBuilder("[");
+    for (final Rollup rollup : project.getLogManager().getRollups(date_from, date_to, period)) {
+      if (json.length() > 1) {
+        json.append(',');
+      }
+      json.append("{\"from\":")
+          .append(quote(rollup.getDateFrom().toString()))
+          .append(",\"to\":")
+          .append(quote(rollup.getDateTo().toString()))
+          .append(",\"total_ms\":")
+          .append(rollup.getTotalMs())
+          .append(",\"count\":")
+          .append(rollup.getCount())
+          .append('}');
+    }
+    return json.append(']').toString();
+  }
+
+  /**
+   * Get the total time of all projects between from and to (excluded) as yyyy-MM-dd, all days if
+   * not given.
+   */
+  private static String answerTotals(final HashMap<String, String> query) {
+    final LocalDate date_from = getDate(query, "from", null);
+    final LocalDate date_to = getDate(query, "to", null);
+    final long day_from = (date_from != null) ? date_from.toEpochDay() : Long.MIN_VALUE / 2l;
+    final long day_to = (date_to != null) ? date_to.toEpochDay() : Long.MAX_VALUE / 2l;
+
+    long total_ms = 0l;
+    StringBuilder json = new StringBuilder("{\"projects\":{");
+    boolean is_first = true;
+    for (final List<String> page : getProjectPages()) {
+      for (final ProjectManager project : ProjectCache.getAll(page)) {
+        final long project_ms = project.getTotalTimeMsBetweenDays(day_from, day_to);
+        total_ms += project_ms;
+        if (!is_first) {
+          json.append(',');
+        }
+        is_first = false;
+        json.append(quote(project.getName())).append(':').append(project_ms);
+      }
+    }
+    return json.append("},\"total_ms\":").append(total_ms).append('}').toString();
+  }
+
+  /** Get the days with logged time of all projects, latest first. */
+  private static String answerDates() {
+    StringBuilder json = new StringBuilder("[");
+    for (final Instant date : ProjectManager.getListDates()) {
+      if (json.length() > 1) {
+        json.append(',');
+      }
+      json.append(quote(date.toString().split("T")[0]));
+    }
+    return json.append(']').toString();
+  }
+
+  /** Get the unfinished sessions of all projects. */
+  private static String answerSessions() {
+    StringBuilder json = new StringBuilder("[");
+    for (final String project_name : ProjectManager.getListProject()) {
+      final String session = getSessionJson(project_name);
+      if (session.equals("null")) {
+        continue;
+      }
+      if (json.length() > 1) {
+        json.append(',');
+      }
+      json.append("{\"project\":")
+          .append(quote(project_name))
+          .append(",\"session\":")
+          .append(session)
+          .append('}');
+    }
+    return json.append(']').toString();
+  }
+}
@@ -0,0 +1,112 @@
+package ProjectTimeManager;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/// This class holds the total time and number of intervals in one period of days.
+public class Rollup {
+  /** The calendar periods which the days can be grouped by. */
+  public enum Period {
+    DAY,
+    WEEK,
+    MONTH,
+    YEAR;
+
+    /**
+     * Get the first day of the period which contains the given day, weeks start on Monday (ISO).
+     *
+     * @param date The day in the period.
+     * @return The first day of the period.
+     */
+    public LocalDate getStart(final LocalDate date) {
+      switch (this) {
+        case WEEK:
+          return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        case MONTH:
+          return date.withDayOfMonth(1);
+        case YEAR:
+          return date.withDayOfYear(1);
+        default:
+          return date;
+      }
+    }
+
+    /**
+     * Get the first day of the next period.
+     *
+     * @param start The first day of one period.
+     * @return The first day of the next period.
+     */
+    public LocalDate getNext(final LocalDate start) {
+      switch (this) {
+        case WEEK:
+          return start.plusWeeks(1);
+        case MONTH:
+          return start.plusMonths(1);
+        case YEAR:
+          return start.plusYears(1);
+        default:
+          return start.plusDays(1);
+      }
+    }
+  }
+
+  /** The first day of this rollup. */
+  private final LocalDate _date_from;
+
+  /** The first day after this rollup. */
+  private final LocalDate _date_to;
+
+  /** The total time in millisecond of the intervals starting in this rollup. */
+  private final long _total_ms;
+
+  /** The number of the intervals starting in this rollup. */
+  private final int _count;
+
+  public Rollup(
+      final LocalDate date_from, final LocalDate date_to, final long total_ms, final int count) {
+    _date_from = date_from;
+    _date_to = date_to;
+    _total_ms = total_ms;
+    _count = count;
+  }
+
+  /** Get the first day of this rollup. */
+  public LocalDate getDateFrom() {
+    return _date_from;
+  }
+
+  /** Get the first day after this rollup. */
+  public LocalDate getDateTo() {
+    return _date_to;
+  }
+
+  /** Get the total time in millisecond of the intervals starting in this rollup. */
+  public long getTotalMs() {
+    return _total_ms;
+  }
+
+  /** Get the number of the intervals starting in this rollup. */
+  public int getCount() {
+    return _count;
+  }
+
+  /** Checks whether any interval starts in this rollup. */
+  public boolean isEmpty() {
+    return _count == 0;
+  }
+
+  @Override
+  public String toString() {
+    final long seconds = _total_ms / 1000l;
+    return String.format(
+        "%s - %s %d:%02d:%02d %d",
+        Interval.formatDate(_date_from.atStartOfDay()),
+        Interval.formatDate(_date_to.atStartOfDay()),
+        seconds / 3600l,
+        seconds / 60l % 60l,
+        seconds % 60l,
+        _count);
+  }
+}
@@ -0,0 +1,508 @@
+package ProjectTimeManager;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/// This class stores the log of one project in segments: one directory for the project with one
+/// log per month "yyyy-MM.prt", named like Interval.formatMonth, and a small manifest. The manifest
+/// keeps the number of sessions and the total time per day of every segment, thus days and totals
+/// are known without opening any segment; intervals of a range of days are read from the segments
+/// of its months only, and new sessions are appended to the segment of their month only. Segments
+/// of closed months can be archived, see ArchiveLog; the archive is read instead of the text then.
+public class SegmentedLog {
+  /** The name of the manifest in the directory of the project. */
+  public static final String MANIFEST = "manifest";
+
+  /** The extension of one segment. */
+  private static final String _extension = ".prt";
+
+  /** The extension of one archived segment. */
+  private static final String _extension_archive = ".pra";
+
+  /** The separator between the fields in one line of the manifest. */
+  private static final String _sep = "\t";
+
+  /** The sessions of one month as listed in the manifest. */
+  private static class Segment {
+    /** The number of sessions in this segment. */
+    private int _count = 0;
+
+    /** The total time in millisecond per day from Posix epoch, for the days with data. */
+    private final TreeMap<Long, Long> _day_totals_ms = new TreeMap<>();
+
+    /** Checks whether another segment lists the same sessions. */
+    private boolean isSame(final Segment other) {
+      return other != null
+          && _count == other._count
+          && _day_totals_ms.equals(other._day_totals_ms);
+    }
+  }
+
+  /** The directory of the project. */
+  private final String _directory;
+
+  /** The segments per month id, ascending. */
+  private final TreeMap<String, Segment> _segments = new TreeMap<>();
+
+  /**
+   * Parse one line of the manifest, "yyyy-MM count day:ms,day:ms".
+   *
+   * @param line The line to parse.
+   * @return Whether the line is valid.
+   */
+  private boolean parseLine(final String line) {
+    final String[] slices = line.split(_sep, -1);
+    if (slices.length != 3) {
+      return false;
+    }
+    try {
+      Segment segment = new Segment();
+      segment._count = Integer.parseInt(slices[1]);
+      for (final String day_total : slices[2].isEmpty() ? new String[0] : slices[2].split(",")) {
+        final int sep = day_total.indexOf(':');
+        segment._day_totals_ms.put(
+            Long.parseLong(day_total.substring(0, sep)),
+            Long.parseLong(day_total.substring(sep + 1)));
+      }
+      _segments.put(slices[0], segment);
+    } catch (RuntimeException ex) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Load the manifest in the given directory, the log is empty if the manifest is missing.
+   *
+   * @param directory The directory of the project.
+   */
+  public SegmentedLog(final String directory) {
+    _directory = directory;
+
+    final List<String> contents = Utils.readFile(getManifestFilename(directory));
+    if (contents != null) {
+      for (final String line : contents) {
+        if (!parseLine(line)) {
+          assert 1 == 2 : "broken manifest in " + directory + ": " + line;
+        }
+      }
+    }
+  }
+
+  /**
+   * Get the filename of the manifest.
+   *
+   * @param directory The directory of the project.
+   * @return The filename of the manifest.
+   */
+  private static String getManifestFilename(final String directory) {
+    return Paths.get(directory, MANIFEST).toString();
+  }
+
+  /**
+   * Checks whether the directory holds a segmented log.
+   *
+   * @param directory The directory of the project.
+   * @return Whether the manifest exists.
+   */
+  public static boolean exists(final String directory) {
+    return new File(getManifestFilename(directory)).isFile();
+  }
+
+  /**
+   * Get a text which changes whenever the segments change, i.e. size and modification time of the
+   * manifest, which is written after every change of the segments.
+   *
+   * @param directory The directory of the project.
+   * @return The signature of the segments.
+   */
+  public static String getSignature(final String directory) {
+    final File file = new File(getManifestFilename(directory));
+    return file.length() + "/" + file.lastModified();
+  }
+
+  /**
+   * Get the month id of one second, which is the segment of the intervals starting then.
+   *
+   * @param second The seconds from epoch.
+   * @return The month id, "yyyy-MM".
+   */
+  public static String getMonth(final long second) {
+    return IntervalCodec.formatTime(second).substring(0, 7);
+  }
+
+  /**
+   * Get the first day of one month.
+   *
+   * @param month The month id, "yyyy-MM".
+   * @return The day from Posix epoch.
+   */
+  public static long getFirstDay(final String month) {
+    return LocalDate.parse(month + "-01").toEpochDay();
+  }
+
+  /** Get the directory of the project. */
+  public String getDirectory() {
+    return _directory;
+  }
+
+  /**
+   * Get the filename of one segment.
+   *
+   * @param month The month id.
+   * @return The filename of the segment.
+   */
+  public String getSegmentFilename(final String month) {
+    return Paths.get(_directory, month + _extension).toString();
+  }
+
+  /**
+   * Get the filename of one archived segment.
+   *
+   * @param month The month id.
+   * @return The filename of the archive.
+   */
+  public String getArchiveFilename(final String month) {
+    return Paths.get(_directory, month + _extension_archive).toString();
+  }
+
+  /**
+   * Checks whether one segment is archived, the archive is read instead of the text then.
+   *
+   * @param month The month id.
+   * @return Whether the archive exists.
+   */
+  public boolean isArchived(final String month) {
+    return new File(getArchiveFilename(month)).isFile();
+  }
+
+  /**
+   * Read the intervals of one segment, from the archive if it is archived.
+   *
+   * @param month The month id.
+   * @return The intervals, or null if the segment cannot be read.
+   */
+  private IntervalStore readSegment(final String month) {
+    IntervalStore intervals = new IntervalStore();
+    if (isArchived(month)) {
+      return ArchiveLog.read(getArchiveFilename(month), intervals) ? intervals : null;
+    }
+    final List<String> contents = Utils.readFile(getSegmentFilename(month));
+    if (contents == null) {
+      return null;
+    }
+    for (final String line : contents) {
+      intervals.add(IntervalCodec.parseStartSecond(line), IntervalCodec.parseEndSecond(line));
+    }
+    return intervals;
+  }
+
+  /**
+   * Check whether the archive decodes to exactly the given intervals, one by one, before the text
+   * they are read from is deleted.
+   *
+   * @param filename The filename of the archive.
+   * @param intervals The intervals which should be archived.
+   * @return Whether every interval is decoded with the same start and end.
+   */
+  private static boolean isArchiveEqual(final String filename, final IntervalStore intervals) {
+    try (ArchiveLog.Decoder decoder = new ArchiveLog.Decoder(filename)) {
+      if (decoder.getCountLeft() != intervals.size()) {
+        return false;
+      }
+      for (int i = 0; i < intervals.size(); ++i) {
+        if (!decoder.next()
+            || decoder.getStartSecond() != intervals.getStartSecond(i)
+            || decoder.getEndSecond() != intervals.getEndSecond(i)) {
+          return false;
+        }
+      }
+      return true;
+    } catch (Exception ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Archive the segment of one month. The archive is written aside and checked against the text,
+   * then it replaces the text at once, so that readers see either the text or the whole archive.
+   *
+   * @param month The month id.
+   * @return Whether the segment is archived.
+   */
+  public boolean archive(final String month) {
+    if (isArchived(month) || !new File(getSegmentFilename(month)).isFile()) {
+      return false;
+    }
+    final IntervalStore intervals = readSegment(month);
+    final String filename_temp = getArchiveFilename(month) + ".tmp";
+    if (intervals == null || !ArchiveLog.write(filename_temp, intervals)) {
+      return false;
+    }
+
+    if (!isArchiveEqual(filename_temp, intervals)) {
+      new File(filename_temp).delete();
+      assert 1 == 2 : "archive of " + month + " in " + _directory + " differs from the log";
+      return false;
+    }
+    try {
+      Files.move(
+          Paths.get(filename_temp),
+          Paths.get(getArchiveFilename(month)),
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (Exception ex) {
+      new File(filename_temp).delete();
+      assert 1 == 2 : "error archiving " + month + " in " + _directory;
+      return false;
+    }
+    return new File(getSegmentFilename(month)).delete();
+  }
+
+  /**
+   * Archive the segments of the months before the given one, e.g. the closed months.
+   *
+   * @param month The first month id to keep as text.
+   * @return The number of archived segments.
+   */
+  public int archiveBefore(final String month) {
+    int count = 0;
+    for (final String month_closed : _segments.headMap(month).keySet()) {
+      if (archive(month_closed)) {
+        ++count;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Write one archived segment as text again, e.g. to append to it.
+   *
+   * @param month The month id.
+   * @return Whether the segment is text now.
+   */
+  private boolean restore(final String month) {
+    final IntervalStore intervals = readSegment(month);
+    if (intervals == null) {
+      return false;
+    }
+    List<String> contents = new ArrayList<>(intervals.size());
+    for (int i = 0; i < intervals.size(); ++i) {
+      contents.add(intervals.format(i));
+    }
+    return Utils.writeFile(getSegmentFilename(month), contents)
+        && new File(getArchiveFilename(month)).delete();
+  }
+
+  /** Get the month ids of all segments, ascending. */
+  public ArrayList<String> getMonths() {
+    return new ArrayList<>(_segments.keySet());
+  }
+
+  /**
+   * Get the month ids of the segments from the given month on.
+   *
+   * @param month The first month id to include.
+   * @return The month ids, ascending.
+   */
+  public ArrayList<String> getMonthsFrom(final String month) {
+    return new ArrayList<>(_segments.tailMap(month).keySet());
+  }
+
+  /**
+   * Get the month ids of the segments with data between the given days.
+   *
+   * @param day_from The first day from Posix epoch to include.
+   * @param day_to The first day from Posix epoch to exclude.
+   * @return The month ids, ascending.
+   */
+  public ArrayList<String> getMonthsBetweenDays(final long day_from, final long day_to) {
+    ArrayList<String> months = new ArrayList<>();
+    for (final Map.Entry<String, Segment> entry : _segments.entrySet()) {
+      final Long day = entry.getValue()._day_totals_ms.ceilingKey(day_from);
+      if (day != null && day < day_to) {
+        months.add(entry.getKey());
+      }
+    }
+    return months;
+  }
+
+  /**
+   * Get the first month whose segment differs from the one in another manifest, e.g. the manifest
+   * when the segments were read.
+   *
+   * @param other The other manifest.
+   * @return The month id, or null if all segments are the same.
+   */
+  public String getFirstChangedMonth(final SegmentedLog other) {
+    TreeMap<String, Segment> months = new TreeMap<>(_segments);
+    months.putAll(other._segments);
+    for (final String month : months.keySet()) {
+      final Segment segment = _segments.get(month);
+      if (segment == null || !segment.isSame(other._segments.get(month))) {
+        return month;
+      }
+    }
+    return null;
+  }
+
+  /** Get the number of sessions in all segments. */
+  public int size() {
+    int count = 0;
+    for (final Segment segment : _segments.values()) {
+      count += segment._count;
+    }
+    return count;
+  }
+
+  /** Get the days from Posix epoch with data, ascending. */
+  public ArrayList<Long> getDays() {
+    ArrayList<Long> days = new ArrayList<>();
+    for (final Segment segment : _segments.values()) {
+      days.addAll(segment._day_totals_ms.keySet());
+    }
+    return days;
+  }
+
+  /**
+   * Get the total time of the sessions starting on one day.
+   *
+   * @param day The day from Posix epoch.
+   * @return The total time in millisecond.
+   */
+  public long getTotalMsOnDay(final long day) {
+    final Segment segment = _segments.get(getMonth(day * TimeLogManager.SECONDS_PER_DAY));
+    return segment == null ? 0l : segment._day_totals_ms.getOrDefault(day, 0l);
+  }
+
+  /**
+   * Checks whether sessions start on the given day.
+   *
+   * @param day The day from Posix epoch.
+   * @return Whether there is a session starting on the day.
+   */
+  public boolean hasDataOnDay(final long day) {
+    final Segment segment = _segments.get(getMonth(day * TimeLogManager.SECONDS_PER_DAY));
+    return segment != null && segment._day_totals_ms.containsKey(day);
+  }
+
+  /**
+   * Get the total time of the sessions starting between the given days.
+   *
+   * @param day_from The first day from Posix epoch to include.
+   * @param day_to The first day from Posix epoch to exclude.
+   * @return The total time in millisecond.
+   */
+  public long getTotalMsBetweenDays(final long day_from, final long day_to) {
+    long sum = 0l;
+    if (day_from >= day_to) {
+      return sum;
+    }
+    for (final Segment segment : _segments.values()) {
+      for (final long total_ms : segment._day_totals_ms.subMap(day_from, day_to).values()) {
+        sum += total_ms;
+      }
+    }
+    return sum;
+  }
+
+  /**
+   * Append intervals to the segments of their months and update the manifest. Only the segments
+   * of the new intervals are written.
+   *
+   * @param intervals The intervals, the new ones should be later than all stored ones.
+   * @param index_from The index of the first new interval.
+   * @return Whether the intervals are appended.
+   */
+  public boolean append(final IntervalStore intervals, final int index_from) {
+    TreeMap<String, List<String>> lines = new TreeMap<>();
+    for (int i = index_from; i < intervals.size(); ++i) {
+      final String month = getMonth(intervals.getStartSecond(i));
+      assert _segments.isEmpty() || _segments.lastKey().compareTo(month) <= 0
+          : "new sessions should not be earlier than the last segment " + _segments.lastKey();
+      lines.computeIfAbsent(month, key -> new ArrayList<>()).add(intervals.format(i));
+
+      Segment segment = _segments.computeIfAbsent(month, key -> new Segment());
+      ++segment._count;
+      segment._day_totals_ms.merge(intervals.getStartDay(i), intervals.getDurationMs(i), Long::sum);
+    }
+    if (lines.isEmpty()) {
+      return true;
+    }
+
+    new File(_directory).mkdirs();
+    for (final Map.Entry<String, List<String>> entry : lines.entrySet()) {
+      if (isArchived(entry.getKey()) && !restore(entry.getKey())) {
+        return false;
+      }
+      if (!Utils.appendFile(getSegmentFilename(entry.getKey()), entry.getValue())) {
+        return false;
+      }
+    }
+    return save();
+  }
+
+  /**
+   * Append one session recovered after a crash. It is appended only if it is not already the last
+   * session of its segment, thus recovering twice logs it once; if the crash happened before the
+   * manifest was written, the manifest entry of the month is counted again from the segment.
+   *
+   * @param start The start of the session in seconds from epoch.
+   * @param end The end of the session in seconds from epoch.
+   * @return Whether the session is in the log.
+   */
+  public boolean appendSession(final long start, final long end) {
+    final String month = getMonth(start);
+    final String last =
+        isArchived(month)
+            ? null
+            : Utils.readLastLine(getSegmentFilename(month), IntervalCodec.LENGTH_INTERVAL);
+    if (last == null || IntervalCodec.parseStartSecond(last) != start) {
+      IntervalStore session = new IntervalStore();
+      session.add(start, end);
+      return append(session, 0);
+    }
+
+    final IntervalStore intervals = readSegment(month);
+    if (intervals == null) {
+      return false;
+    }
+    final Segment listed = _segments.get(month);
+    if (listed != null && listed._count == intervals.size()) {
+      return true;
+    }
+    Segment segment = new Segment();
+    for (int i = 0; i < intervals.size(); ++i) {
+      ++segment._count;
+      segment._day_totals_ms.merge(intervals.getStartDay(i), intervals.getDurationMs(i), Long::sum);
+    }
+    _segments.put(month, segment);
+    return save();
+  }
+
+  /**
+   * Write the manifest.
+   *
+   * @return Whether the manifest is written.
+   */
+  private boolean save() {
+    List<String> contents = new ArrayList<>(_segments.size());
+    for (final Map.Entry<String, Segment> entry : _segments.entrySet()) {
+      StringBuilder day_totals = new StringBuilder();
+      for (final Map.Entry<Long, Long> day_total : entry.getValue()._day_totals_ms.entrySet()) {
+        if (day_totals.length() > 0) {
+          day_totals.append(',');
+        }
+        day_totals.append(day_total.getKey()).append(':').append(day_total.getValue());
+      }
+      contents.add(entry.getKey() + _sep + entry.getValue()._count + _sep + day_totals);
+    }
+    return Utils.writeFile(getManifestFilename(_directory), contents);
+  }
+}
@@ -0,0 +1,223 @@
+package ProjectTimeManager;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/// This class is the write-ahead log (journal) of the sessions of one project. Every event of a
+/// session is appended as one record of fixed size with a sequence number and a checksum: start,
+/// heartbeat, end and commit once the session is in the log. The journal is replayed in one pass
+/// from the beginning; it stops at the first broken record, e.g. a record torn by a crash. Once the
+/// session is committed, the journal is removed, thus a replay costs the events of one session.
+public class SessionJournal implements AutoCloseable {
+  /** The event when a session starts. */
+  public static final byte START = 1;
+
+  /** The event when a running session is still alive, with the time as end. */
+  public static final byte BEAT = 2;
+
+  /** The event when a session ends, with the final start and end. */
+  public static final byte END = 3;
+
+  /** The event when the session is stored in the log. */
+  public static final byte COMMIT = 4;
+
+  /** The size of one record: sequence, event, start, end and checksum. */
+  public static final int RECORD_SIZE = 8 + 1 + 8 + 8 + 4;
+
+  /// This class is the session which is not yet committed, as found by the replay.
+  public static class Session {
+    /** The start of the session in seconds from epoch. */
+    private long _start;
+
+    /** The last known end of the session in seconds from epoch. */
+    private long _end;
+
+    /** Whether the session has ended, thus its end is final. */
+    private boolean _is_ended = false;
+
+    private Session(final long start, final long end) {
+      _start = start;
+      _end = end;
+    }
+
+    /** Get the start of the session in seconds from epoch. */
+    public long getStartSecond() {
+      return _start;
+    }
+
+    /** Get the last known end of the session in seconds from epoch. */
+    public long getEndSecond() {
+      return _end;
+    }
+
+    /** Checks whether the session has ended. */
+    public boolean isEnded() {
+      return _is_ended;
+    }
+  }
+
+  /** The result of one replay. */
+  private static class Replay {
+    /** The session which is not yet committed, null if none. */
+    private Session _session = null;
+
+    /** The sequence number of the last valid record, 0 if none. */
+    private long _sequence = 0l;
+
+    /** The length of the valid records in byte. */
+    private long _length = 0l;
+  }
+
+  /** The file of the journal. */
+  private final RandomAccessFile _file;
+
+  /** The sequence number of the last record. */
+  private long _sequence;
+
+  /** The buffer for one record, reused for all records. */
+  private final ByteBuffer _buffer = ByteBuffer.allocate(RECORD_SIZE);
+
+  /**
+   * Open the journal for appending. The records after the first broken one are cut off, so that
+   * the new records are found by the replay.
+   *
+   * @param filename The file of the journal, created if not existing.
+   * @throws Exception If the file cannot be opened.
+   */
+  public SessionJournal(final String filename) throws Exception {
+    final Replay replay = scan(filename);
+    _file = new RandomAccessFile(filename, "rw");
+    _file.setLength(replay._length);
+    _file.seek(replay._length);
+    _sequence = replay._sequence;
+  }
+
+  /**
+   * Get the checksum of one record without its checksum.
+   *
+   * @param record The record.
+   * @return The checksum.
+   */
+  private static int getChecksum(final byte[] record) {
+    CRC32 crc = new CRC32();
+    crc.update(record, 0, RECORD_SIZE - 4);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Read the valid records of one journal in one pass and find the session which is not committed.
+   *
+   * @param filename The file of the journal.
+   * @return The result of the replay, empty if the file is missing.
+   */
+  private static Replay scan(final String filename) {
+    Replay replay = new Replay();
+    if (!new File(filename).isFile()) {
+      return replay;
+    }
+    final byte[] record = new byte[RECORD_SIZE];
+    try (DataInputStream input =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(filename)))) {
+      while (true) {
+        input.readFully(record);
+        final ByteBuffer buffer = ByteBuffer.wrap(record);
+        final long sequence = buffer.getLong();
+        final byte event = buffer.get();
+        final long start = buffer.getLong();
+        final long end = buffer.getLong();
+        if (buffer.getInt() != getChecksum(record) || sequence != replay._sequence + 1l) {
+          // a torn or stale record ends the journal
+          break;
+        }
+        replay._sequence = sequence;
+        replay._length += RECORD_SIZE;
+
+        if (event == START) {
+          replay._session = new Session(start, end);
+        } else if (event == BEAT) {
+          if (replay._session != null
+              && !replay._session._is_ended
+              && replay._session._start == start) {
+            replay._session._end = Math.max(replay._session._end, end);
+          }
+        } else if (event == END) {
+          replay._session = new Session(start, end);
+          replay._session._is_ended = true;
+        } else if (event == COMMIT) {
+          replay._session = null;
+        }
+      }
+    } catch (EOFException ex) {
+      // the end of the journal, an incomplete record is ignored
+    } catch (Exception ex) {
+      assert 1 == 2 : "error replaying the journal " + filename;
+    }
+    return replay;
+  }
+
+  /**
+   * Replay one journal.
+   *
+   * @param filename The file of the journal.
+   * @return The session which is not committed, or null if all are committed.
+   */
+  public static Session replay(final String filename) {
+    return scan(filename)._session;
+  }
+
+  /**
+   * Append one record.
+   *
+   * @param event The event, e.g. START.
+   * @param start The start of the session in seconds from epoch.
+   * @param end The end of the session, or the time of the event, in seconds from epoch.
+   * @param is_forced Whether the record is forced to the storage device before returning.
+   * @return Whether the record is appended.
+   */
+  public synchronized boolean append(
+      final byte event, final long start, final long end, final boolean is_forced) {
+    _buffer.clear();
+    _buffer.putLong(_sequence + 1l).put(event).putLong(start).putLong(end);
+    _buffer.putInt(getChecksum(_buffer.array()));
+    _buffer.flip();
+    try {
+      final FileChannel channel = _file.getChannel();
+      while (_buffer.hasRemaining()) {
+        channel.write(_buffer);
+      }
+      if (is_forced) {
+        channel.force(false);
+      }
+    } catch (Exception ex) {
+      assert 1 == 2 : "error appending to the journal";
+      return false;
+    }
+    ++_sequence;
+    return true;
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      _file.close();
+    } catch (Exception ex) {
+      assert 1 == 2 : "error closing the journal";
+    }
+  }
+
+  /**
+   * Remove one journal whose sessions are committed or discarded.
+   *
+   * @param filename The file of the journal.
+   */
+  public static void remove(final String filename) {
+    new File(filename).delete();
+  }
+}
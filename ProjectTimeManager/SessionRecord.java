@@ -0,0 +1,200 @@
+package ProjectTimeManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// This class keeps the running session in a lock file of fixed size which is mapped into memory,
+/// so that the end time is updated in place every heartbeat. The record is one line of the log,
+/// "yyyy-MM-dd HH:mm:ss - yyyy-MM-dd HH:mm:ss\n", thus it can be read like a log. While the record
+/// is open, the byte after it is locked, so that other processes can tell a session held by a
+/// running process from one left behind.
+public class SessionRecord {
+  /** The size of the record in byte, one interval and the line break. */
+  public static final int SIZE = IntervalCodec.LENGTH_INTERVAL + 1;
+
+  /** The position of the end time in the record. */
+  private static final int _offset_end = IntervalCodec.LENGTH_INTERVAL - IntervalCodec.LENGTH_TIME;
+
+  /** The number of heartbeats between two forced writes, can be set with -Dptm.heartbeat.force. */
+  private static final int _count_beat_force = Integer.getInteger("ptm.heartbeat.force", 60);
+
+  /** The lock files of the records held in this process, as absolute paths. */
+  private static final Set<String> _held = ConcurrentHashMap.newKeySet();
+
+  /** The lock file, as absolute path. */
+  private final String _path;
+
+  /** The file of the record. */
+  private final RandomAccessFile _file;
+
+  /** The record mapped into memory, null once closed. */
+  private MappedByteBuffer _buffer;
+
+  /** The buffer for formatting the end time, reused for all heartbeats. */
+  private final char[] _text_end = new char[IntervalCodec.LENGTH_TIME];
+
+  /** The time zone for the local time, which is stored as if it were in UTC. */
+  private final TimeZone _time_zone = TimeZone.getDefault();
+
+  /** The start of the session in seconds from epoch. */
+  private final long _start;
+
+  /** The end of the session in seconds from epoch, as of the last heartbeat. */
+  private long _end;
+
+  /** The number of heartbeats since the last forced write. */
+  private int _count_beat = 0;
+
+  /**
+   * Create the record for one session which starts now.
+   *
+   * @param filename The lock file.
+   * @param start The start of the session in seconds from epoch.
+   * @throws Exception If the file cannot be mapped, or the record is held by another process or
+   *     another record in this process; the held record is not touched then.
+   */
+  public SessionRecord(final String filename, final long start) throws Exception {
+    _start = start;
+    _end = Math.max(start, getSecondNow());
+    _path = new File(filename).getAbsolutePath();
+    // the file is not opened again in this process, closing it may release the lock
+    if (!_held.add(_path)) {
+      throw new IOException("session in " + filename + " is held in this process");
+    }
+    try {
+      _file = new RandomAccessFile(filename, "rw");
+    } catch (IOException ex) {
+      _held.remove(_path);
+      throw ex;
+    }
+    try {
+      // the lock is beyond the record, it does not block readers where locks are mandatory
+      if (_file.getChannel().tryLock(SIZE, 1l, false) == null) {
+        throw new IOException("session in " + filename + " is held by another process");
+      }
+      _file.setLength(SIZE);
+      _buffer = _file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, SIZE);
+    } catch (IOException | OverlappingFileLockException ex) {
+      _file.close();
+      _held.remove(_path);
+      throw ex;
+    }
+
+    final byte[] line =
+        IntervalCodec.formatInterval(start, _end)
+            .getBytes(StandardCharsets.US_ASCII);
+    _buffer.put(line, 0, line.length);
+    _buffer.put(line.length, (byte) '\n');
+    _buffer.force();
+  }
+
+  /**
+   * Get the current local time in seconds from epoch, as if it were in UTC.
+   *
+   * @return The current second.
+   */
+  private long getSecondNow() {
+    final long millis = System.currentTimeMillis();
+    return Math.floorDiv(millis + _time_zone.getOffset(millis), 1000l);
+  }
+
+  /** Get the start of the session in seconds from epoch. */
+  public long getStartSecond() {
+    return _start;
+  }
+
+  /** Get the end of the session in seconds from epoch, as of the last heartbeat. */
+  public synchronized long getEndSecond() {
+    return _end;
+  }
+
+  /**
+   * Write the current time as end of the session. The record is forced to the storage device
+   * every some heartbeats, between them the operating system writes it back by itself.
+   *
+   * @return Whether the record is forced to the storage device in this heartbeat.
+   */
+  public synchronized boolean beat() {
+    if (_buffer == null) {
+      return false;
+    }
+    _end = Math.max(_start, getSecondNow());
+    IntervalCodec.formatEpochSecond(_end, _text_end, 0);
+    for (int i = 0; i < _text_end.length; ++i) {
+      _buffer.put(_offset_end + i, (byte) _text_end[i]);
+    }
+    if (++_count_beat >= _count_beat_force) {
+      _buffer.force();
+      _count_beat = 0;
+      return true;
+    }
+    return false;
+  }
+
+  /** Write the last heartbeat and release the file, later heartbeats are ignored. */
+  public synchronized void close() {
+    if (_buffer == null) {
+      return;
+    }
+    beat();
+    _buffer.force();
+    _buffer = null;
+    try {
+      _file.close();
+    } catch (Exception ex) {
+      assert 1 == 2 : "error closing the record of running session";
+    }
+    _held.remove(_path);
+  }
+
+  /**
+   * Checks whether the record in one lock file is held by a running process, i.e. the session is
+   * not detached or left by a crashed process.
+   *
+   * @param filename The lock file.
+   * @return Whether the record is held.
+   */
+  public static boolean isHeld(final String filename) {
+    if (_held.contains(new File(filename).getAbsolutePath())) {
+      // another channel of this process must not touch the lock, closing it may release the lock
+      return true;
+    }
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.WRITE)) {
+      final FileLock lock = channel.tryLock(SIZE, 1l, false);
+      if (lock == null) {
+        return true;
+      }
+      lock.release();
+      return false;
+    } catch (OverlappingFileLockException ex) {
+      return true;
+    } catch (Exception ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Read the session in one record, or in one lock file written as text.
+   *
+   * @param filename The lock file.
+   * @return The session as one line of log, or null if it cannot be read.
+   */
+  public static String read(final String filename) {
+    final byte[] bytes = Utils.readBytes(filename, 0, IntervalCodec.LENGTH_INTERVAL);
+    if (bytes == null) {
+      return null;
+    }
+    return new String(bytes, StandardCharsets.US_ASCII);
+  }
+}
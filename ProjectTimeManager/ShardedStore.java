@@ -0,0 +1,339 @@
+package ProjectTimeManager;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/// This class reads several directories for data (roots) as one store, each root is one shard, e.g.
+/// one store per engineer. The shards are read in parallel and the results are merged by project
+/// name. The days and daily totals of one shard come from its index of days, which is saved in the
+/// root and read again only for the changed logs, thus an update in one shard does not parse the
+/// other shards again, also in the next run of the program. The merged results are kept in memory
+/// until the logs change.
+public class ShardedStore {
+  /** One root and its results, which are valid as long as the logs in the root are unchanged. */
+  private static class Shard {
+    /** The directory for data. */
+    private final String _root;
+
+    /** Names, sizes and modification times of the logs when the results were collected. */
+    private String _signature = null;
+
+    /** The available projects, sorted by name; null if not collected. */
+    private ArrayList<String> _projects = null;
+
+    /** The days from Posix epoch with data, descending; null if not collected. */
+    private ArrayList<Long> _days = null;
+
+    /** The projects with data per day from Posix epoch. */
+    private final HashMap<Long, ArrayList<String>> _projects_of_day = new HashMap<>();
+
+    /** The total time in millisecond per project, per range of days "from/to". */
+    private final HashMap<String, TreeMap<String, Long>> _totals = new HashMap<>();
+
+    private Shard(final String root) {
+      _root = root;
+    }
+
+    /**
+     * Get the text which changes whenever one log in the root changes. The lock files, the journals
+     * and the hidden files (e.g. the index of days) are not included, they do not change the
+     * results.
+     *
+     * @return The signature of the logs in the root.
+     */
+    private String getSignature() {
+      final File[] files = new File(_root).listFiles();
+      if (files == null) {
+        return "";
+      }
+      Arrays.sort(files);
+      StringBuilder signature = new StringBuilder();
+      for (final File file : files) {
+        final String name = file.getName();
+        if (name.startsWith(".") || name.endsWith(".lk") || name.endsWith(".wal")) {
+          continue;
+        }
+        signature.append(name).append('/');
+        if (file.isDirectory()) {
+          // a log segmented by month changes its manifest
+          signature.append(SegmentedLog.getSignature(file.getPath())).append(';');
+          continue;
+        }
+        signature.append(file.length()).append('/').append(file.lastModified()).append(';');
+      }
+      return signature.toString();
+    }
+
+    /** Drop the results if the logs changed since they were collected. */
+    private void refresh() {
+      final String signature = getSignature();
+      if (signature.equals(_signature)) {
+        return;
+      }
+      _signature = signature;
+      _projects = null;
+      _days = null;
+      _projects_of_day.clear();
+      _totals.clear();
+    }
+
+    /** Get the index of days of the root, up to date. */
+    private DayIndex getDayIndex() {
+      return DayIndex.update(_root, ProjectManager.getListProject(_root));
+    }
+
+    /** Get the available projects, sorted by name. */
+    private synchronized ArrayList<String> getProjects() {
+      refresh();
+      if (_projects == null) {
+        _projects = ProjectManager.getListProject(_root);
+        Collections.sort(_projects);
+      }
+      return _projects;
+    }
+
+    /** Get the days from Posix epoch with data, descending. */
+    private synchronized ArrayList<Long> getDays() {
+      refresh();
+      if (_days == null) {
+        _days = getDayIndex().getDays();
+      }
+      return _days;
+    }
+
+    /**
+     * Get the projects with data on one day.
+     *
+     * @param day The day from Posix epoch.
+     * @return The names of the projects, sorted.
+     */
+    private synchronized ArrayList<String> getProjects(final long day) {
+      refresh();
+      ArrayList<String> projects = _projects_of_day.get(day);
+      if (projects == null) {
+        projects = getDayIndex().getProjects(day);
+        _projects_of_day.put(day, projects);
+      }
+      return projects;
+    }
+
+    /**
+     * Get the total time of each project between the days.
+     *
+     * @param day_from The first day from Posix epoch to include.
+     * @param day_to The first day from Posix epoch to exclude.
+     * @return The total time in millisecond per project.
+     */
+    private synchronized TreeMap<String, Long> getTotals(final long day_from, final long day_to) {
+      refresh();
+      final String key = day_from + "/" + day_to;
+      TreeMap<String, Long> totals = _totals.get(key);
+      if (totals == null) {
+        totals = getDayIndex().getTotalsMs(day_from, day_to);
+        _totals.put(key, totals);
+      }
+      return totals;
+    }
+
+    /**
+     * Get the days with data of one project.
+     *
+     * @param project_name The name of the project.
+     * @return The days from Posix epoch, ascending.
+     */
+    private synchronized ArrayList<Long> getDays(final String project_name) {
+      return getDayIndex().getDays(project_name);
+    }
+  }
+
+  /** The number of threads for reading shards, can be set with -Dptm.shard.threads. */
+  private static final int _count_thread =
+      Integer.getInteger("ptm.shard.threads", Runtime.getRuntime().availableProcessors());
+
+  /** The threads for reading shards in parallel, created when needed. */
+  private static ExecutorService _executor = null;
+
+  /** The shards, in the order of the given roots. */
+  private final ArrayList<Shard> _shards = new ArrayList<>();
+
+  /**
+   * Get the threads for reading shards, they do not keep the program alive. They are not the
+   * threads of ProjectCache, which the shards wait for.
+   */
+  private static synchronized ExecutorService getExecutor() {
+    if (_executor == null) {
+      _executor =
+          Executors.newFixedThreadPool(
+              Math.max(1, _count_thread),
+              runnable -> {
+                Thread thread = new Thread(runnable, "ptm-shard");
+                thread.setDaemon(true);
+                return thread;
+              });
+    }
+    return _executor;
+  }
+
+  /**
+   * Create the store of the given roots.
+   *
+   * @param roots The directories for data, each is one shard.
+   */
+  public ShardedStore(final List<String> roots) {
+    assert !roots.isEmpty() : "sharded store needs at least one root";
+    for (final String root : new LinkedHashSet<>(roots)) {
+      _shards.add(new Shard(root));
+    }
+  }
+
+  /**
+   * Create the store of the roots in -Dptm.roots, separated like the class path; the default
+   * directory for data is used if it is not set.
+   *
+   * @return The store.
+   */
+  public static ShardedStore fromProperties() {
+    final String roots = System.getProperty("ptm.roots", "");
+    if (roots.isEmpty()) {
+      return new ShardedStore(Collections.singletonList(ProjectManager.getDefaultRoot()));
+    }
+    return new ShardedStore(Arrays.asList(roots.split(File.pathSeparator)));
+  }
+
+  /** Get the roots of the shards. */
+  public ArrayList<String> getRoots() {
+    ArrayList<String> roots = new ArrayList<>(_shards.size());
+    for (final Shard shard : _shards) {
+      roots.add(shard._root);
+    }
+    return roots;
+  }
+
+  /**
+   * Run the task on all shards in parallel.
+   *
+   * @param task The task for one shard.
+   * @return The results in the order of the shards, or null if one task failed.
+   */
+  private <T> ArrayList<T> collect(final Function<Shard, T> task) {
+    ArrayList<Future<T>> futures = new ArrayList<>(_shards.size());
+    for (final Shard shard : _shards) {
+      futures.add(getExecutor().submit(() -> task.apply(shard)));
+    }
+
+    ArrayList<T> results = new ArrayList<>(_shards.size());
+    try {
+      for (final Future<T> future : futures) {
+        results.add(future.get());
+      }
+    } catch (Exception ex) {
+      assert 1 == 2 : "error reading shards in parallel";
+      return null;
+    }
+    return results;
+  }
+
+  /**
+   * Get the projects in all shards, a project in several shards is listed once.
+   *
+   * @return The names of the projects, sorted.
+   */
+  public ArrayList<String> getListProject() {
+    TreeSet<String> projects = new TreeSet<>();
+    for (final ArrayList<String> shard_projects : collect(Shard::getProjects)) {
+      projects.addAll(shard_projects);
+    }
+    return new ArrayList<>(projects);
+  }
+
+  /**
+   * Checks whether the project with given name is available in any shard.
+   *
+   * @param project_name The name of consulted project.
+   * @return Whether the project is available.
+   */
+  public boolean isProjectAvailable(final String project_name) {
+    for (final Shard shard : _shards) {
+      if (ProjectManager.isProjectAvailable(shard._root, project_name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get the dates with data in any shard.
+   *
+   * @return The dates, latest first.
+   */
+  public ArrayList<Instant> getListDates() {
+    TreeSet<Long> days = new TreeSet<>(Collections.reverseOrder());
+    for (final ArrayList<Long> shard_days : collect(Shard::getDays)) {
+      days.addAll(shard_days);
+    }
+    ArrayList<Instant> dates = new ArrayList<>(days.size());
+    for (final long day : days) {
+      dates.add(Instant.ofEpochSecond(day * TimeLogManager.SECONDS_PER_DAY));
+    }
+    return dates;
+  }
+
+  /**
+   * Get the projects with data on the given date in any shard.
+   *
+   * @param date The date.
+   * @return The names of the projects, sorted.
+   */
+  public ArrayList<String> getListProjectWithData(final Instant date) {
+    final long day = date.getEpochSecond() / TimeLogManager.SECONDS_PER_DAY;
+    TreeSet<String> projects = new TreeSet<>();
+    for (final ArrayList<String> shard_projects : collect(shard -> shard.getProjects(day))) {
+      projects.addAll(shard_projects);
+    }
+    return new ArrayList<>(projects);
+  }
+
+  /**
+   * Get the days with data of one project in any shard.
+   *
+   * @param project_name The name of the project.
+   * @return The days from Posix epoch, ascending.
+   */
+  public ArrayList<Long> getDays(final String project_name) {
+    TreeSet<Long> days = new TreeSet<>();
+    for (final Shard shard : _shards) {
+      if (ProjectManager.isProjectAvailable(shard._root, project_name)) {
+        days.addAll(shard.getDays(project_name));
+      }
+    }
+    return new ArrayList<>(days);
+  }
+
+  /**
+   * Get the total time of each project between the days, summed over the shards.
+   *
+   * @param day_from The first day from Posix epoch to include.
+   * @param day_to The first day from Posix epoch to exclude.
+   * @return The total time in millisecond per project, sorted by name.
+   */
+  public TreeMap<String, Long> getTotalTimeMs(final long day_from, final long day_to) {
+    TreeMap<String, Long> totals = new TreeMap<>();
+    for (final TreeMap<String, Long> shard_totals :
+        collect(shard -> shard.getTotals(day_from, day_to))) {
+      shard_totals.forEach((name, ms) -> totals.merge(name, ms, Long::sum));
+    }
+    return totals;
+  }
+}
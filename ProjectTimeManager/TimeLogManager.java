@@ -1,18 +1,40 @@
 package ProjectTimeManager;
 
+import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 public class TimeLogManager {
-  /** The list of cached timestamps. */
-  private ArrayList<Interval> _time_entries = new ArrayList<>();
+  /** The cached intervals. */
+  private IntervalStore _time_entries = new IntervalStore();
+
+  /** The number of entries which are already stored in the log file. */
+  private int _count_persisted = 0;
+
+  /** The length of the log file when it was last read or written by this manager. */
+  private long _length_persisted = 0l;
+
+  /** Whether the log file ends with a line break, so that new lines can be appended. */
+  private boolean _is_log_terminated = true;
+
+  /** The modification time of the log file when it was last read or written by this manager. */
+  private long _modified_persisted = 0l;
+
+  /** The checksum of the last bytes of the log file which were read or written. */
+  private long _checksum_persisted = 0l;
+
+  /**
+   * The number of bytes before the end of the read log which are checked for changes, so that a
+   * refresh costs only the new data and this window, not the whole history.
+   */
+  private static final int _size_checksum = 4096;
 
   /** Starting time of the latest interval (on-going interval if this project is opened). */
   private LocalDateTime _time_start;
@@ -20,6 +42,23 @@ public class TimeLogManager {
   /** The number of seconds in one day. */
   public static final long SECONDS_PER_DAY = 24L * 3600L;
 
+  public TimeLogManager() {}
+
+  /**
+   * Copy the intervals and the state of the log file of another manager.
+   *
+   * @param other The manager to copy.
+   */
+  public TimeLogManager(final TimeLogManager other) {
+    _time_entries = new IntervalStore(other._time_entries);
+    _count_persisted = other._count_persisted;
+    _length_persisted = other._length_persisted;
+    _is_log_terminated = other._is_log_terminated;
+    _modified_persisted = other._modified_persisted;
+    _checksum_persisted = other._checksum_persisted;
+    _time_start = other._time_start;
+  }
+
   /**
    * Get the starting second of the date time.
    *
@@ -38,15 +77,168 @@ public class TimeLogManager {
   public void updateLog(String filename) {
     List<String> contents = new LinkedList<String>();
 
-    for (Interval interval : _time_entries) {
-      contents.add(interval.formatInterval());
+    for (int i = 0; i < _time_entries.size(); ++i) {
+      contents.add(_time_entries.format(i));
     }
 
     Utils.writeFile(filename, contents);
+    markPersisted(filename);
+  }
+
+  /**
+   * Append the entries which are not yet stored to the end of the log file. This costs only the
+   * new lines instead of the whole history, but it is only possible when the file is unchanged
+   * since it was read or written by this manager.
+   *
+   * @param filename The given filename.
+   * @return Whether the new entries are appended; if not, the log should be merged with mergeLog.
+   */
+  public boolean appendLog(String filename) {
+    final File file = new File(filename);
+    if (!_is_log_terminated
+        || _count_persisted > _time_entries.size()
+        || file.length() != _length_persisted
+        || file.lastModified() != _modified_persisted) {
+      return false;
+    }
+
+    List<String> contents = new LinkedList<String>();
+    for (int i = _count_persisted; i < _time_entries.size(); ++i) {
+      contents.add(_time_entries.format(i));
+    }
+
+    if (!Utils.appendFile(filename, contents)) {
+      return false;
+    }
+    markPersisted(filename);
+    return true;
+  }
+
+  /**
+   * Store the entries which are not yet stored, also if the log file was changed since it was read
+   * or written by this manager. The log is read again first, thus the lines written by others are
+   * kept; the new entries are then appended, or the log is compacted if it cannot be appended.
+   * The caller should hold the exclusive lock of the log.
+   *
+   * @param filename The given filename.
+   */
+  public void mergeLog(String filename) {
+    if (appendLog(filename)) {
+      return;
+    }
+
+    final IntervalStore entries_new = new IntervalStore();
+    for (int i = Math.min(_count_persisted, _time_entries.size()); i < _time_entries.size(); ++i) {
+      entries_new.add(_time_entries.getStartSecond(i), _time_entries.getEndSecond(i));
+    }
+    if (new File(filename).exists()) {
+      readLog(filename);
+    } else {
+      _time_entries.clear();
+      markPersisted(filename);
+    }
+    for (int i = 0; i < entries_new.size(); ++i) {
+      _time_entries.add(entries_new.getStartSecond(i), entries_new.getEndSecond(i));
+    }
+    assert areLogsOrdered() : "logs are not aligned in file " + filename;
+
+    if (!appendLog(filename)) {
+      updateLog(filename);
+    }
   }
 
+  /**
+   * Remember that all entries are stored in the log file as it is now.
+   *
+   * @param filename The filename of the logging file.
+   */
+  private void markPersisted(final String filename) {
+    final File file = new File(filename);
+    _count_persisted = _time_entries.size();
+    _length_persisted = file.length();
+    _modified_persisted = file.lastModified();
+    _is_log_terminated = Utils.isFileTerminated(filename);
+    _checksum_persisted = getChecksumPersisted(filename);
+  }
+
+  /**
+   * Get the checksum of the last bytes of the log file which are read or written.
+   *
+   * @param filename The filename of the logging file.
+   * @return The checksum.
+   */
+  private long getChecksumPersisted(final String filename) {
+    return Utils.getChecksum(
+        filename, Math.max(0l, _length_persisted - _size_checksum), _length_persisted);
+  }
+
+  /** Get the number of entries which are stored in the log file. */
+  public int getCountPersisted() {
+    return _count_persisted;
+  }
+
+  /**
+   * Bring the entries up to date with the log file. If the file only grew since it was read or
+   * written, only the new lines are read; the whole file is read again only if the read part
+   * changed, which is detected by the length and the checksum of its last bytes. A refresh thus
+   * reads the new data and a bounded window, however long the history is.
+   *
+   * @param filename The filename of the logging file.
+   * @return Whether the entries are up to date.
+   */
+  public boolean refreshLog(final String filename) {
+    final File file = new File(filename);
+    final long length = file.length();
+    if (length == _length_persisted && file.lastModified() == _modified_persisted) {
+      return true;
+    }
+    if (!_is_log_terminated
+        || _count_persisted != _time_entries.size()
+        || length <= _length_persisted
+        || getChecksumPersisted(filename) != _checksum_persisted) {
+      return readLog(filename);
+    }
+
+    final byte[] tail = Utils.readBytes(filename, _length_persisted, length);
+    if (tail == null) {
+      return readLog(filename);
+    }
+    int begin = 0;
+    for (int i = 0; i < tail.length; ++i) {
+      if (tail[i] != '\n') {
+        continue;
+      }
+      final int end = (i > begin && tail[i - 1] == '\r') ? (i - 1) : i;
+      if (end == begin) {
+        // an empty line ends the log for readLog, so let it decide
+        return readLog(filename);
+      }
+      addLine(
+          new String(tail, begin, end - begin, StandardCharsets.UTF_8),
+          _time_entries.size() + 1,
+          filename);
+      begin = i + 1;
+    }
+    assert areLogsOrdered() : "logs are not aligned in file " + filename;
+
+    // an incomplete last line is read when it is complete
+    _count_persisted = _time_entries.size();
+    _length_persisted += begin;
+    _modified_persisted = file.lastModified();
+    _checksum_persisted = getChecksumPersisted(filename);
+    return true;
+  }
+
+  /**
+   * Add the session from the starting time till now. The intervals are logged in whole seconds,
+   * thus a session ending in the second it started is logged with one second instead of empty.
+   */
   public void closeNow() {
-    _time_entries.add(new Interval(_time_start, LocalDateTime.now()));
+    LocalDateTime time_end = LocalDateTime.now();
+    if (!time_end.withNano(0).isAfter(_time_start.withNano(0))) {
+      time_end = _time_start.withNano(0).plusSeconds(1l);
+    }
+    _time_entries.add(new Interval(_time_start, time_end));
     assert areLogsOrdered() : "intervals are not in order";
   }
 
@@ -56,19 +248,8 @@ public class TimeLogManager {
    *
    * @return
    */
-  private boolean areLogsOrdered() {
-    if (_time_entries.isEmpty()) {
-      return true;
-    } else {
-      ArrayList<Long> all_time_ms = new ArrayList<>();
-      for (final Interval interval : _time_entries) {
-        all_time_ms.add(interval.getStartTime().toEpochSecond(ZoneOffset.UTC));
-        all_time_ms.add(interval.getEndTime().toEpochSecond(ZoneOffset.UTC));
-      }
-
-      return IntStream.range(1, all_time_ms.size())
-          .allMatch(i -> all_time_ms.get(i) > all_time_ms.get(i - 1));
-    }
+  public boolean areLogsOrdered() {
+    return _time_entries.isOrdered();
   }
 
   /**
@@ -80,7 +261,118 @@ public class TimeLogManager {
    */
   public boolean readLog(final String filename) {
     _time_entries.clear();
-    return addLog(filename);
+    final boolean is_read = addLog(filename);
+    markPersisted(filename);
+    return is_read;
+  }
+
+  /**
+   * Read the time entries in the given segments of a segmented log, the other segments are not
+   * opened.
+   *
+   * @param segments The segmented log.
+   * @param months The month ids of the segments to read, ascending.
+   * @return Whether all segments are read.
+   */
+  public boolean readSegments(final SegmentedLog segments, final List<String> months) {
+    _time_entries.clear();
+    return addSegments(segments, months);
+  }
+
+  /**
+   * Add the time entries in the given segments, which should be later than all cached entries.
+   *
+   * @param segments The segmented log.
+   * @param months The month ids of the segments to read, ascending.
+   * @return Whether all segments are read.
+   */
+  private boolean addSegments(final SegmentedLog segments, final List<String> months) {
+    boolean is_read = true;
+    for (final String month : months) {
+      is_read &=
+          segments.isArchived(month)
+              ? addArchive(segments.getArchiveFilename(month))
+              : addLog(segments.getSegmentFilename(month));
+    }
+    _count_persisted = _time_entries.size();
+    return is_read;
+  }
+
+  /**
+   * Bring the entries up to date with a segmented log. The segments from the first changed one on
+   * are read again, the entries of the earlier months are kept.
+   *
+   * @param previous The manifest when the entries were read.
+   * @param segments The current manifest.
+   * @return Whether the entries are up to date.
+   */
+  public boolean refreshSegments(final SegmentedLog previous, final SegmentedLog segments) {
+    final String month = segments.getFirstChangedMonth(previous);
+    if (month == null) {
+      return true;
+    }
+    _time_entries.removeFromDay(SegmentedLog.getFirstDay(month));
+    return addSegments(segments, segments.getMonthsFrom(month));
+  }
+
+  /**
+   * Append the entries which are not yet stored to the segments of their months.
+   *
+   * @param segments The segmented log.
+   * @return Whether the new entries are appended.
+   */
+  public boolean appendSegments(final SegmentedLog segments) {
+    if (_count_persisted > _time_entries.size()
+        || !segments.append(_time_entries, _count_persisted)) {
+      return false;
+    }
+    _count_persisted = _time_entries.size();
+    return true;
+  }
+
+  /**
+   * Read the time entries which are stored in the binary log with the given filename. The binary
+   * log is converted from the text log, thus the text log is known as stored if its last line is
+   * the last entry; new entries are then appended to it instead of rewriting it.
+   *
+   * @param filename The filename of the binary log.
+   * @param filename_text The filename of the text log.
+   * @return Whether reading the binary log is successful.
+   */
+  public boolean readBinaryLog(final String filename, final String filename_text) {
+    final IntervalStore intervals = BinaryLog.read(filename);
+    if (intervals == null) {
+      return false;
+    }
+    _time_entries = intervals;
+    assert areLogsOrdered() : "logs are not aligned in file " + filename;
+
+    if (!_time_entries.isEmpty()
+        && _time_entries
+            .format(_time_entries.size() - 1)
+            .equals(Utils.readLastLine(filename_text, IntervalCodec.LENGTH_INTERVAL))) {
+      markPersisted(filename_text);
+    } else {
+      // a missing text log gets all entries, another one is read again when the entries are stored
+      _count_persisted = 0;
+      _length_persisted = new File(filename_text).exists() ? -1l : 0l;
+      _modified_persisted = 0l;
+      _is_log_terminated = true;
+      _checksum_persisted = -1l;
+    }
+    return true;
+  }
+
+  /**
+   * Add the time entries in one archive, which is decoded as a stream.
+   *
+   * @param filename The filename of the archive.
+   * @return Whether the archive is read.
+   */
+  public boolean addArchive(final String filename) {
+    final boolean is_read = ArchiveLog.read(filename, _time_entries);
+    assert areLogsOrdered() : "logs are not aligned in file " + filename;
+    return is_read;
   }
 
   public boolean addLog(final String filename) {
@@ -88,13 +380,48 @@ public class TimeLogManager {
     if (contents == null || contents.isEmpty()) {
       return false;
     }
+    int line_number = 0;
     for (final String line : contents) {
-      _time_entries.add(new Interval(line));
+      addLine(line, ++line_number, filename);
     }
     assert areLogsOrdered() : "logs are not aligned in file " + filename;
     return true;
   }
 
+  /**
+   * Parse one line of the log and add the interval.
+   *
+   * @param line The line to parse.
+   * @param line_number The number of this line in the log, for the error message.
+   * @param filename The filename of the log, for the error message.
+   */
+  private void addLine(final String line, final int line_number, final String filename) {
+    try {
+      IntervalCodec.checkLine(line);
+      _time_entries.add(
+          IntervalCodec.parseEpochSecond(line, 0),
+          IntervalCodec.parseEpochSecond(line, line.length() - IntervalCodec.LENGTH_TIME));
+    } catch (IllegalArgumentException ex) {
+      throw new IllegalArgumentException(
+          String.format("line %d in %s: %s", line_number, filename, ex.getMessage()), ex);
+    }
+  }
+
+  /**
+   * Add the unfinished session in the lock file.
+   *
+   * @param filename The lock file.
+   * @return Whether the session is read.
+   */
+  public boolean addPendingSession(final String filename) {
+    final String session = SessionRecord.read(filename);
+    if (session == null) {
+      return false;
+    }
+    addLine(session, 1, filename);
+    return true;
+  }
+
   /** Add current timestamp to the cache list. */
   public void addNow() {
     _time_start = LocalDateTime.now();
@@ -125,14 +452,74 @@ public class TimeLogManager {
    */
   public long getTotalTimeMs(ArrayList<Instant> dates) {
     if (dates == null || dates.isEmpty()) {
-      return _time_entries.stream().map(Interval::getDurationMs).mapToLong(l -> l).sum();
-    } else {
-      return _time_entries.stream()
-          .filter(interval -> isIntervalOnDates(interval, dates))
-          .map(Interval::getDurationMs)
-          .mapToLong(l -> l)
-          .sum();
+      return _time_entries.getTotalMs();
+    }
+
+    // the rollup of each day is counted once, even if the day is given repeatedly
+    final long[] days =
+        dates.stream()
+            .mapToLong(date -> IntervalStore.toEpochDay(date.getEpochSecond()))
+            .sorted()
+            .distinct()
+            .toArray();
+    long sum = 0l;
+    for (final long day : days) {
+      sum += _time_entries.getTotalMsOnDay(day);
     }
+    return sum;
+  }
+
+  /**
+   * Get the total elapsed time of the intervals starting between the given days in millisecond.
+   *
+   * @param day_from The first day from Posix epoch to include.
+   * @param day_to The first day from Posix epoch to exclude.
+   * @return The total elapsed time of the intervals starting in [day_from, day_to).
+   */
+  public long getTotalTimeMsBetweenDays(final long day_from, final long day_to) {
+    return _time_entries.getTotalMsBetweenDays(day_from, day_to);
+  }
+
+  /**
+   * Get the total time and number of the intervals starting between the given days.
+   *
+   * @param date_from The first day to include.
+   * @param date_to The first day to exclude.
+   * @return The rollup of [date_from, date_to).
+   */
+  public Rollup getRollup(final LocalDate date_from, final LocalDate date_to) {
+    final long day_from = date_from.toEpochDay();
+    final long day_to = date_to.toEpochDay();
+    return new Rollup(
+        date_from,
+        date_to,
+        _time_entries.getTotalMsBetweenDays(day_from, day_to),
+        _time_entries.getCountBetweenDays(day_from, day_to));
+  }
+
+  /**
+   * Get the total time and number of intervals per calendar period between the given days. Every
+   * period is answered from the cumulative sums, thus the cost depends on the number of periods
+   * rather than on the number of intervals.
+   *
+   * @param date_from The first day to include.
+   * @param date_to The first day to exclude.
+   * @param period The period to group by, the first and last period are clipped to the range.
+   * @return The rollups of all periods in order, incl. the ones without intervals.
+   */
+  public ArrayList<Rollup> getRollups(
+      final LocalDate date_from, final LocalDate date_to, final Rollup.Period period) {
+    ArrayList<Rollup> rollups = new ArrayList<>();
+    LocalDate start = date_from;
+    while (start.isBefore(date_to)) {
+      LocalDate end = period.getNext(period.getStart(start));
+      if (end.isAfter(date_to)) {
+        end = date_to;
+      }
+      rollups.add(getRollup(start, end));
+      start = end;
+    }
+    return rollups;
   }
 
   /**
@@ -143,19 +530,45 @@ public class TimeLogManager {
   public HashMap<Long, ArrayList<Interval>> getGroupedIntervals() {
     HashMap<Long, ArrayList<Interval>> map = new HashMap<>();
 
-    for (Interval interval : _time_entries) {
-      final Long day = interval.getStartTime().toLocalDate().toEpochDay();
+    for (int i = 0; i < _time_entries.size(); ++i) {
+      final Long day = _time_entries.getStartDay(i);
       if (!map.containsKey(day)) {
         map.put(day, new ArrayList<>());
       }
-      map.get(day).add(interval);
+      map.get(day).add(_time_entries.get(i));
     }
 
     return map;
   }
 
-  /** Get the intervals in this project. */
+  /** Get the intervals in this project, they are created on demand. */
   public ArrayList<Interval> getIntervals() {
+    return _time_entries.getIntervals(0, _time_entries.size());
+  }
+
+  /**
+   * Get the intervals which start between the given days.
+   *
+   * @param day_from The first day from Posix epoch to include.
+   * @param day_to The first day from Posix epoch to exclude.
+   * @return The intervals starting in [day_from, day_to).
+   */
+  public ArrayList<Interval> getIntervalsBetweenDays(final long day_from, final long day_to) {
+    return _time_entries.getIntervalsBetweenDays(day_from, day_to);
+  }
+
+  /** Get the days from Posix epoch on which intervals start, ascending. */
+  public ArrayList<Long> getDays() {
+    return _time_entries.getDays();
+  }
+
+  /** Checks whether intervals start on the given day from Posix epoch. */
+  public boolean hasDataOnDay(final long day) {
+    return _time_entries.hasDataOnDay(day);
+  }
+
+  /** Get the compact store of the intervals in this project. */
+  public IntervalStore getIntervalStore() {
     return _time_entries;
   }
 
@@ -1,9 +1,15 @@
 package ProjectTimeManager;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.zip.CRC32;
 
 public class Utils {
 
@@ -38,22 +44,198 @@ public class Utils {
     return content == null ? 0 : content.size();
   }
 
+  /**
+   * Write the contents as the whole file. They are written into a hidden file beside it first,
+   * which then replaces the file at once; thus a reader sees either the old or the new file, never
+   * a half written one.
+   *
+   * @param filename The file to write, created if not existing.
+   * @param contents The lines to write.
+   * @return Whether the file is written.
+   */
   public static boolean writeFile(final String filename, final List<String> contents) {
-    File file = new File(filename);
+    final File file = new File(filename).getAbsoluteFile();
+    File file_temp = null;
     try {
-      FileOutputStream out_stream = new FileOutputStream(file, false);
+      file_temp = createTempFile(file);
+      FileOutputStream out_stream = new FileOutputStream(file_temp, false);
       BufferedWriter br = new BufferedWriter(new OutputStreamWriter(out_stream));
       for (final String content : contents) {
         br.write(content);
         br.newLine();
       }
       br.flush();
+      out_stream.getFD().sync();
 
       br.close();
+      replaceFile(file_temp.toPath(), file.toPath());
     } catch (Exception ex) {
+      if (file_temp != null) {
+        file_temp.delete();
+      }
       assert 1 == 2 : ("error writing intervals to " + filename);
       return false;
     }
     return true;
   }
+
+  /**
+   * Create a hidden temporary file beside the file to replace. Its name is unique, thus writers of
+   * the same file in several threads or processes never write into one temporary file. It gets the
+   * permissions of the file if that exists.
+   *
+   * @param file The file to replace, with absolute path.
+   * @return The temporary file.
+   * @throws IOException If the file cannot be created.
+   */
+  public static File createTempFile(final File file) throws IOException {
+    final Path path =
+        Files.createTempFile(file.getParentFile().toPath(), "." + file.getName() + ".", ".tmp");
+    try {
+      Files.setPosixFilePermissions(path, Files.getPosixFilePermissions(file.toPath()));
+    } catch (IOException | UnsupportedOperationException ex) {
+      // a new file, or a file system without permissions, keeps the default
+    }
+    return path.toFile();
+  }
+
+  /**
+   * Replace one file by another by renaming, atomically if the file system supports it.
+   *
+   * @param source The new file, which is renamed.
+   * @param target The file to replace.
+   * @throws IOException If the file cannot be renamed.
+   */
+  public static void replaceFile(final Path source, final Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Append the contents to the end of the file and force them to the storage device, so that one
+   * record is durable once this returns.
+   *
+   * @param filename The file to append to, created if not existing.
+   * @param contents The lines to append.
+   * @return Whether the lines are appended and synchronized.
+   */
+  public static boolean appendFile(final String filename, final List<String> contents) {
+    File file = new File(filename);
+    try {
+      FileOutputStream out_stream = new FileOutputStream(file, true);
+      BufferedWriter br = new BufferedWriter(new OutputStreamWriter(out_stream));
+      for (final String content : contents) {
+        br.write(content);
+        br.newLine();
+      }
+      br.flush();
+      out_stream.getFD().sync();
+
+      br.close();
+    } catch (Exception ex) {
+      assert 1 == 2 : ("error appending intervals to " + filename);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether the file ends with a line break, an empty or missing file counts as terminated.
+   *
+   * @param filename The file to check.
+   * @return Whether new lines can be appended to the file directly.
+   */
+  public static boolean isFileTerminated(final String filename) {
+    final File file = new File(filename);
+    if (file.length() == 0l) {
+      return true;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+      raf.seek(raf.length() - 1l);
+      final int last = raf.read();
+      return last == '\n' || last == '\r';
+    } catch (Exception ex) {
+      return false;
+    }
+  }
+
+  /**
+   * Read the bytes in [from, to) of the file.
+   *
+   * @param filename The file to read.
+   * @param from The first position to read.
+   * @param to The first position not to read.
+   * @return The bytes, or null if they cannot be read.
+   */
+  public static byte[] readBytes(final String filename, final long from, final long to) {
+    if (to - from > Integer.MAX_VALUE - 8) {
+      // larger ranges do not fit in one array
+      return null;
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(filename, "r")) {
+      byte[] bytes = new byte[(int) (to - from)];
+      raf.seek(from);
+      raf.readFully(bytes);
+      return bytes;
+    } catch (Exception ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Read the last line of the file without reading the rest, the line breaks at the end are
+   * ignored.
+   *
+   * @param filename The file to read.
+   * @param max_length The maximum length of the line in byte.
+   * @return The last line, or null if the file is missing or empty.
+   */
+  public static String readLastLine(final String filename, final int max_length) {
+    final long length = new File(filename).length();
+    final byte[] bytes = readBytes(filename, Math.max(0l, length - max_length - 2l), length);
+    if (bytes == null) {
+      return null;
+    }
+    int end = bytes.length;
+    while (end > 0 && (bytes[end - 1] == '\n' || bytes[end - 1] == '\r')) {
+      --end;
+    }
+    int begin = end;
+    while (begin > 0 && bytes[begin - 1] != '\n') {
+      --begin;
+    }
+    return end == begin ? null : new String(bytes, begin, end - begin, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Get the CRC32 checksum of the bytes in [from, to) of the file.
+   *
+   * @param filename The file to read.
+   * @param from The first position to read.
+   * @param to The first position not to read.
+   * @return The checksum, or -1 if the bytes cannot be read.
+   */
+  public static long getChecksum(final String filename, final long from, final long to) {
+    if (to <= from) {
+      return 0l;
+    }
+    // the bytes are streamed in chunks, so that any range can be checked in bounded memory
+    CRC32 crc = new CRC32();
+    try (RandomAccessFile raf = new RandomAccessFile(filename, "r")) {
+      final byte[] buffer = new byte[(int) Math.min(to - from, 65536l)];
+      raf.seek(from);
+      for (long position = from; position < to; ) {
+        final int count = (int) Math.min(buffer.length, to - position);
+        raf.readFully(buffer, 0, count);
+        crc.update(buffer, 0, count);
+        position += count;
+      }
+    } catch (Exception ex) {
+      return -1l;
+    }
+    return crc.getValue();
+  }
 }
@@ -0,0 +1,321 @@
+package ProjectTimeManager;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+/// This class fills a directory for data with synthetic projects for benchmarks and load tests.
+public class WorkloadGenerator {
+  /** One random distribution for a number, e.g. "normal:90:45". */
+  public static class Distribution {
+    /** The kind of distribution: const, uniform, normal or exp. */
+    private final String _kind;
+
+    /** The parameters of the distribution. */
+    private final double[] _params;
+
+    /**
+     * Parse the distribution, the formats are "const:V", "uniform:MIN:MAX", "normal:MEAN:SD" and
+     * "exp:MEAN".
+     *
+     * @param text The text to parse.
+     */
+    public Distribution(final String text) {
+      final String[] slices = text.split(":");
+      _kind = slices[0];
+      _params = new double[slices.length - 1];
+      for (int i = 1; i < slices.length; ++i) {
+        _params[i - 1] = Double.parseDouble(slices[i]);
+      }
+
+      final int count_param =
+          _kind.equals("uniform") || _kind.equals("normal")
+              ? 2
+              : (_kind.equals("const") || _kind.equals("exp") ? 1 : -1);
+      if (count_param != _params.length) {
+        throw new IllegalArgumentException("distribution cannot be parsed: " + text);
+      }
+    }
+
+    /**
+     * Draw one number from this distribution.
+     *
+     * @param random The random generator.
+     * @return The drawn number.
+     */
+    public double sample(final Random random) {
+      switch (_kind) {
+        case "const":
+          return _params[0];
+        case "uniform":
+          return _params[0] + random.nextDouble() * (_params[1] - _params[0]);
+        case "normal":
+          return _params[0] + random.nextGaussian() * _params[1];
+        default:
+          return -Math.log(1.0 - random.nextDouble()) * _params[0];
+      }
+    }
+  }
+
+  /** The directory for data to fill. */
+  private String _directory = ".ptm_projects";
+
+  /** The seed for the random generator, the same seed gives the same files. */
+  private long _seed = 0l;
+
+  /** The number of projects. */
+  private int _count_project = 10;
+
+  /** The number of years of sessions per project. */
+  private int _count_year = 3;
+
+  /** The number of sessions per project, if positive it replaces the years. */
+  private int _count_interval = 0;
+
+  /** The number of projects with a pending session in a lock file. */
+  private int _count_pending = 0;
+
+  /** The prefix of project names, followed by the index. */
+  private String _prefix = "project-";
+
+  /** The first day after the generated sessions. */
+  private LocalDate _date_end = LocalDate.of(2025, 1, 1);
+
+  /** The number of sessions per day. */
+  private Distribution _sessions_per_day = new Distribution("uniform:0:4");
+
+  /** The length of one session in minutes. */
+  private Distribution _session_minutes = new Distribution("normal:90:45");
+
+  /** The pause before one session in minutes. */
+  private Distribution _gap_minutes = new Distribution("exp:30");
+
+  /** The first session of one day starts at this hour plus the pause. */
+  private static final int _hour_begin = 8;
+
+  /** No session starts after this hour. */
+  private static final int _hour_last_start = 22;
+
+  public WorkloadGenerator setDirectory(final String directory) {
+    _directory = directory;
+    return this;
+  }
+
+  public WorkloadGenerator setSeed(final long seed) {
+    _seed = seed;
+    return this;
+  }
+
+  public WorkloadGenerator setProjectCount(final int count_project) {
+    _count_project = count_project;
+    return this;
+  }
+
+  public WorkloadGenerator setYearCount(final int count_year) {
+    _count_year = count_year;
+    return this;
+  }
+
+  public WorkloadGenerator setIntervalCount(final int count_interval) {
+    _count_interval = count_interval;
+    return this;
+  }
+
+  public WorkloadGenerator setPendingCount(final int count_pending) {
+    _count_pending = count_pending;
+    return this;
+  }
+
+  public WorkloadGenerator setPrefix(final String prefix) {
+    _prefix = prefix;
+    return this;
+  }
+
+  public WorkloadGenerator setEndDate(final LocalDate date_end) {
+    _date_end = date_end;
+    return this;
+  }
+
+  public WorkloadGenerator setSessionsPerDay(final Distribution sessions_per_day) {
+    _sessions_per_day = sessions_per_day;
+    return this;
+  }
+
+  public WorkloadGenerator setSessionMinutes(final Distribution session_minutes) {
+    _session_minutes = session_minutes;
+    return this;
+  }
+
+  public WorkloadGenerator setGapMinutes(final Distribution gap_minutes) {
+    _gap_minutes = gap_minutes;
+    return this;
+  }
+
+  /**
+   * Get the name of the generated project with given index.
+   *
+   * @param index The index of the project.
+   * @return The name of the project.
+   */
+  public String getProjectName(final int index) {
+    return String.format("%s%03d", _prefix, index);
+  }
+
+  /**
+   * Draw a positive number of seconds from the distribution of minutes.
+   *
+   * @param random The random generator.
+   * @param minutes The distribution of minutes.
+   * @return The seconds, at least one.
+   */
+  private static long sampleSeconds(final Random random, final Distribution minutes) {
+    return Math.max(1l, Math.round(minutes.sample(random) * 60.0));
+  }
+
+  /**
+   * Create the sessions of one project. The sessions are ordered and do not overlap.
+   *
+   * @param random The random generator.
+   * @return The sessions.
+   */
+  private IntervalStore createSessions(final Random random) {
+    IntervalStore sessions = new IntervalStore();
+    final long day_end = _date_end.toEpochDay();
+    long day =
+        (_count_interval > 0)
+            ? day_end - (_count_interval / 2 + 1)
+            : _date_end.minusYears(_count_year).toEpochDay();
+    long second_last = Long.MIN_VALUE;
+    while ((_count_interval > 0) ? (sessions.size() < _count_interval) : (day < day_end)) {
+      final long count = Math.max(0l, Math.round(_sessions_per_day.sample(random)));
+      long second = day * TimeLogManager.SECONDS_PER_DAY + _hour_begin * 3600l;
+      for (long i = 0; i < count; ++i) {
+        second = Math.max(second, second_last + 1l) + sampleSeconds(random, _gap_minutes);
+        if (second >= day * TimeLogManager.SECONDS_PER_DAY + _hour_last_start * 3600l
+            || (_count_interval > 0 && sessions.size() >= _count_interval)) {
+          break;
+        }
+        final long end = second + sampleSeconds(random, _session_minutes);
+        sessions.add(second, end);
+        second_last = end;
+        second = end;
+      }
+      ++day;
+    }
+    assert sessions.isOrdered() : "generated sessions are not in order";
+    return sessions;
+  }
+
+  /**
+   * Write the projects into the directory for data.
+   *
+   * @return The number of written sessions.
+   */
+  public long generate() {
+    new File(_directory).mkdirs();
+    Random random = new Random(_seed);
+    long count_all = 0l;
+    for (int index = 0; index < _count_project; ++index) {
+      final IntervalStore sessions = createSessions(random);
+      List<String> contents = new LinkedList<String>();
+      for (int i = 0; i < sessions.size(); ++i) {
+        contents.add(sessions.format(i));
+      }
+      final String project_name = getProjectName(index);
+      Utils.writeFile(Paths.get(_directory, project_name + ".prt").toString(), contents);
+      count_all += sessions.size();
+
+      // the pending session starts after the last session and was updated a while later
+      if (index < _count_pending) {
+        final long start =
+            (sessions.isEmpty()
+                    ? _date_end.toEpochDay() * TimeLogManager.SECONDS_PER_DAY
+                    : sessions.getEndSecond(sessions.size() - 1))
+                + sampleSeconds(random, _gap_minutes);
+        final long end = start + sampleSeconds(random, _session_minutes);
+        TimeLogManager.updateThisSession(
+            Paths.get(_directory, project_name + ".lk").toString(),
+            IntervalCodec.formatInterval(start, end));
+      }
+    }
+    return count_all;
+  }
+
+  /** Print the usage of the command line. */
+  private static void printUsage() {
+    System.out.println(
+        String.join(
+            System.lineSeparator(),
+            "usage: WorkloadGenerator [options]",
+            "  --dir PATH               directory for data (.ptm_projects)",
+            "  --seed N                 seed of the random generator (0)",
+            "  --projects N             number of projects (10)",
+            "  --years N                years of sessions per project (3)",
+            "  --intervals N            sessions per project, replaces --years",
+            "  --pending N              projects with a pending session (0)",
+            "  --prefix TEXT            prefix of project names (project-)",
+            "  --end yyyy-MM-dd         first day after the sessions (2025-01-01)",
+            "  --sessions-per-day DIST  sessions per day (uniform:0:4)",
+            "  --session-minutes DIST   length of one session (normal:90:45)",
+            "  --gap-minutes DIST       pause before one session (exp:30)",
+            "DIST is const:V, uniform:MIN:MAX, normal:MEAN:SD or exp:MEAN"));
+  }
+
+  public static void main(String[] args) {
+    WorkloadGenerator generator = new WorkloadGenerator();
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 >= args.length) {
+        printUsage();
+        System.exit(1);
+      }
+      final String value = args[i + 1];
+      switch (args[i]) {
+        case "--dir":
+          generator.setDirectory(value);
+          break;
+        case "--seed":
+          generator.setSeed(Long.parseLong(value));
+          break;
+        case "--projects":
+          generator.setProjectCount(Integer.parseInt(value));
+          break;
+        case "--years":
+          generator.setYearCount(Integer.parseInt(value));
+          break;
+        case "--intervals":
+          generator.setIntervalCount(Integer.parseInt(value));
+          break;
+        case "--pending":
+          generator.setPendingCount(Integer.parseInt(value));
+          break;
+        case "--prefix":
+          generator.setPrefix(value);
+          break;
+        case "--end":
+          generator.setEndDate(LocalDate.parse(value));
+          break;
+        case "--sessions-per-day":
+          generator.setSessionsPerDay(new Distribution(value));
+          break;
+        case "--session-minutes":
+          generator.setSessionMinutes(new Distribution(value));
+          break;
+        case "--gap-minutes":
+          generator.setGapMinutes(new Distribution(value));
+          break;
+        default:
+          printUsage();
+          System.exit(1);
+      }
+    }
+
+    final long count = generator.generate();
+    System.out.println(
+        String.format(
+            "generated %d sessions in %d projects in %s",
+            count, generator._count_project, generator._directory));
+  }
+}
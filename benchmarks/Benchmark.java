@@ -0,0 +1,123 @@
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/// Measures the main operations on one synthetic project with the given number of intervals.
+public class Benchmark {
+  /** The generator of the synthetic project. */
+  private static final ProjectTimeManager.WorkloadGenerator _generator =
+      new ProjectTimeManager.WorkloadGenerator()
+          .setSeed(20200720l)
+          .setProjectCount(1)
+          .setPrefix("bench-")
+          .setSessionsPerDay(new ProjectTimeManager.WorkloadGenerator.Distribution("uniform:1:8"));
+
+  /** The name of the synthetic project. */
+  private static final String _project_name = _generator.getProjectName(0);
+
+  /** The filename of the synthetic project. */
+  private static final String _filename = ".ptm_projects/" + _project_name + ".prt";
+
+  /** Iterations before measuring, for class loading and JIT. */
+  private static int _count_warmup = Integer.getInteger("bench.warmup", 3);
+
+  /** Measured iterations. */
+  private static int _count_measure = Integer.getInteger("bench.iterations", 5);
+
+  /** Results are written here, so that the JIT cannot remove the work. */
+  private static long _sink = 0l;
+
+  /**
+   * Run the operation and print the time per operation.
+   *
+   * @param name The name of the operation.
+   * @param size The number of intervals.
+   * @param operation The operation, returns a number to keep its result.
+   */
+  private static void measure(final String name, final int size, final Supplier<Long> operation) {
+    for (int i = 0; i < _count_warmup; ++i) {
+      _sink += operation.get();
+    }
+    long[] times = new long[_count_measure];
+    for (int i = 0; i < _count_measure; ++i) {
+      final long start = System.nanoTime();
+      _sink += operation.get();
+      times[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(times);
+    final double mean = Arrays.stream(times).average().orElse(0.0) / 1e6;
+    System.out.println(
+        String.format(
+            "%-28s %9d %12.3f %12.3f %12.3f",
+            name, size, mean, times[0] / 1e6, times[times.length / 2] / 1e6));
+  }
+
+  public static void main(String[] args) {
+    final int size = Integer.parseInt(args[0]);
+
+    _generator.setIntervalCount(size).generate();
+
+    ProjectTimeManager.TimeLogManager log_manager = new ProjectTimeManager.TimeLogManager();
+    log_manager.readLog(_filename);
+    final ArrayList<Long> days = log_manager.getDays();
+    // a week in the middle of the history
+    ArrayList<Instant> dates = new ArrayList<>();
+    for (int i = 0; i < 7 && i < days.size(); ++i) {
+      dates.add(
+          Instant.ofEpochSecond(
+              days.get(days.size() / 2 + i) * ProjectTimeManager.TimeLogManager.SECONDS_PER_DAY));
+    }
+    final ProjectTimeManager.ProjectManager project =
+        new ProjectTimeManager.ProjectManager(_project_name);
+
+    System.out.println(
+        String.format(
+            "%-28s %9s %12s %12s %12s", "# benchmark", "intervals", "mean_ms", "min_ms", "p50_ms"));
+
+    measure(
+        "readLog",
+        size,
+        () -> {
+          ProjectTimeManager.TimeLogManager manager = new ProjectTimeManager.TimeLogManager();
+          manager.readLog(_filename);
+          return (long) manager.getIntervalStore().size();
+        });
+    measure("getGroupedIntervals", size, () -> (long) log_manager.getGroupedIntervals().size());
+    measure("getTotalTimeMs", size, () -> log_manager.getTotalTimeMs(null));
+    measure("getTotalTimeMs_dates", size, () -> log_manager.getTotalTimeMs(dates));
+    measure(
+        "getProjectSummary_dates",
+        size,
+        () -> (long) project.getProjectSummary(dates).length());
+    measure("getProjectSummary_all", size, () -> (long) project.getProjectSummary(null).length());
+    measure(
+        "getSummaryPage_first",
+        size,
+        () -> (long) project.getSummaryPage(project.getSummaryDays(null), 0).length());
+    measure(
+        "getListDates_cold",
+        size,
+        () -> {
+          new File(".ptm_projects/.day_index").delete();
+          ProjectTimeManager.ProjectCache.clear();
+          return (long) ProjectTimeManager.ProjectManager.getListDates().size();
+        });
+    measure(
+        "getListDates_indexed",
+        size,
+        () -> (long) ProjectTimeManager.ProjectManager.getListDates().size());
+
+    ProjectTimeManager.Utils.writeFile(".config", Arrays.asList("name: Bench", "hours: 8"));
+    measure(
+        "ProjectReporter.output",
+        size,
+        () -> {
+          new ProjectTimeManager.ProjectReporter(_project_name).output("bench.rtf");
+          return new File("bench.rtf").length();
+        });
+
+    System.out.println("# checksum " + _sink);
+  }
+}
@@ -0,0 +1,23 @@
+#!/bin/bash
+
+set -e
+
+# usage: bench.sh [number of intervals ...], the jar should be built with scripts/compile.sh
+
+cd $(dirname $(realpath $0))
+dir_bench=$(pwd)
+
+sizes=${@:-1000 100000 1000000}
+
+javac -cp ../ProjectTimeManager.jar Benchmark.java
+
+echo "# commit $(git rev-parse --short HEAD 2>/dev/null || echo unknown), $(java -version 2>&1 | head -n 1)"
+for size in $sizes
+do
+  # each size runs in its own directory and JVM, so that the results do not affect each other
+  dir_work=$(mktemp -d)
+  cd $dir_work
+  java -ea -Xmx4g ${BENCH_OPTS} -cp $dir_bench/../ProjectTimeManager.jar:$dir_bench Benchmark $size
+  cd $dir_bench
+  rm -rf $dir_work
+done
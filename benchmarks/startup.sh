@@ -0,0 +1,79 @@
+#!/bin/bash
+
+set -e
+
+# usage: startup.sh [number of runs], the jars and PTM.jsa should be built with scripts/compile.sh
+# measures the time until exit of headless queries and until the first frame of the GUI (needs a
+# display), with and without the archive of classes; the median of the runs is printed
+
+cd $(dirname $(dirname $(realpath $0)))
+dir_root=$(pwd)
+count_run=${1:-10}
+
+# print the current time in millisecond
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# print the median of the arguments
+median() {
+  printf '%s\n' "$@" | sort -n | awk '{ values[NR] = $1 } END { print values[int((NR + 1) / 2)] }'
+}
+
+# measure one headless query: name, JVM options, arguments of PTM
+measure_exit() {
+  local name=$1 options=$2
+  shift 2
+  local times=()
+  for (( i = 0; i < count_run; ++i ))
+  do
+    local start=$(now_ms)
+    java $options -jar $dir_root/PTM.jar "$@" > /dev/null
+    times+=($(( $(now_ms) - start )))
+  done
+  printf "%-28s %-10s %10s\n" "$name" "$label" "$(median ${times[@]})"
+}
+
+# measure the time to the first frame of the GUI: name, JVM options
+measure_frame() {
+  local name=$1 options=$2
+  if [[ -z "$DISPLAY" ]];
+  then
+    printf "%-28s %-10s %10s\n" "$name" "$label" "skipped"
+    return
+  fi
+  local times=()
+  for (( i = 0; i < count_run; ++i ))
+  do
+    local output=$(java $options -Dptm.startup.probe=$(now_ms) -jar $dir_root/PTM.jar)
+    times+=($(echo "$output" | awk '/first frame after/ { print $4 }'))
+  done
+  printf "%-28s %-10s %10s\n" "$name" "$label" "$(median ${times[@]})"
+}
+
+dir_work=$(mktemp -d)
+java -cp ProjectTimeManager.jar ProjectTimeManager.WorkloadGenerator \
+  --dir $dir_work/.ptm_projects --projects 20 --years 3 > /dev/null
+cd $dir_work
+
+echo "# commit $(git -C $dir_root rev-parse --short HEAD 2>/dev/null || echo unknown), $(java -version 2>&1 | head -n 1)"
+printf "%-28s %-10s %10s\n" "# startup" "archive" "median_ms"
+for label in none PTM.jsa
+do
+  options=""
+  if [[ $label == PTM.jsa ]];
+  then
+    if [[ ! -f $dir_root/PTM.jsa ]];
+    then
+      continue
+    fi
+    options="-XX:SharedArchiveFile=$dir_root/PTM.jsa -Xlog:cds=off -Xlog:cds+dynamic=off"
+  fi
+  measure_exit "help" "$options" help
+  measure_exit "total" "$options" total
+  measure_exit "dates" "$options" dates
+  measure_frame "gui_first_frame" "$options"
+done
+
+cd $dir_root
+rm -rf $dir_work
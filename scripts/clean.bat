@@ -2,5 +2,6 @@ CD ..
 
 DEL /S /Q *.class
 DEL /S /Q *.jar
+DEL /Q PTM.jsa
 
 PAUSE
@@ -5,4 +5,5 @@ set -e
 cd $(dirname $(dirname $(realpath $0)))
 
 rm $(find -name "*.class")
-rm $(find -name "*.jar")
\ No newline at end of file
+rm $(find -name "*.jar")
+rm -f PTM.jsa
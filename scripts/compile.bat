@@ -1,9 +1,20 @@
 CD ..
 
-javac Main.java
+javac Main.java ProjectTimeManager\*.java
 
 jar cf ProjectTimeManager.jar ProjectTimeManager\*.class
 
 jar cfm PTM.jar MANIFEST.MF ProjectTimeManager.jar Main.class
 
+REM archive the classes loaded by one headless query on synthetic data, so that start.bat starts faster;
+REM the archive needs JDK 13 or newer and is only valid for the JDK and jars which created it
+SET DIR_ROOT=%CD%
+SET DIR_TRAIN=%TEMP%\ptm_train
+IF EXIST PTM.jsa DEL PTM.jsa
+java -cp ProjectTimeManager.jar ProjectTimeManager.WorkloadGenerator --dir %DIR_TRAIN%\.ptm_projects --projects 5 --years 1 > NUL
+PUSHD %DIR_TRAIN%
+java -XX:ArchiveClassesAtExit=%DIR_ROOT%\PTM.jsa -jar %DIR_ROOT%\PTM.jar total > NUL 2>&1 || ECHO class data archive is not created, it needs JDK 13 or newer
+POPD
+RMDIR /S /Q %DIR_TRAIN%
+
 pause
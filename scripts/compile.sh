@@ -4,8 +4,19 @@ set -e
 
 cd $(dirname $(dirname $(realpath $0)))
 
-javac Main.java
+javac Main.java ProjectTimeManager/*.java
 
 jar cf ProjectTimeManager.jar ProjectTimeManager/*.class
 
 jar cfm PTM.jar MANIFEST.MF ProjectTimeManager.jar Main.class
+
+# archive the classes loaded by one headless query on synthetic data, so that start.sh starts faster;
+# the archive needs JDK 13 or newer and is only valid for the JDK and jars which created it
+dir_root=$(pwd)
+dir_train=$(mktemp -d)
+rm -f PTM.jsa
+java -cp ProjectTimeManager.jar ProjectTimeManager.WorkloadGenerator \
+  --dir $dir_train/.ptm_projects --projects 5 --years 1 > /dev/null
+(cd $dir_train && java -XX:ArchiveClassesAtExit=$dir_root/PTM.jsa -jar $dir_root/PTM.jar total \
+  > /dev/null 2>&1) || echo "class data archive is not created, it needs JDK 13 or newer"
+rm -rf $dir_train
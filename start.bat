@@ -1,3 +1,7 @@
-java -ea -jar PTM.jar
+IF EXIST PTM.jsa (
+  java -ea -XX:SharedArchiveFile=PTM.jsa -Xlog:cds=off -Xlog:cds+dynamic=off -jar PTM.jar %*
+) ELSE (
+  java -ea -jar PTM.jar %*
+)
 
 pause
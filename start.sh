@@ -2,4 +2,10 @@
 
 set -e
 
-java -ea -jar PTM.jar
+# the archive of classes from scripts/compile.sh makes the start faster, it is ignored if outdated
+if [[ -f PTM.jsa ]];
+then
+  java -ea -XX:SharedArchiveFile=PTM.jsa -Xlog:cds=off -Xlog:cds+dynamic=off -jar PTM.jar "$@"
+else
+  java -ea -jar PTM.jar "$@"
+fi
@@ -0,0 +1,84 @@
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  private static void runSession(final String project_name) throws Exception {
+    ProjectTimeManager.ProjectManager project = new ProjectTimeManager.ProjectManager(project_name);
+    project.start();
+    // logged time is in seconds, the session must not end in the same second
+    Thread.sleep(1100l);
+    project.getLogManager().closeNow();
+    project.end();
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+
+    final List<String> history =
+        Arrays.asList(
+            "2020-07-20 18:12:10 - 2020-07-20 20:21:19",
+            "2020-07-21 21:55:11 - 2020-07-21 23:49:08");
+
+    // a well formed log only gets the new session appended
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/journal.prt", history);
+    runSession("journal");
+    List<String> lines = ProjectTimeManager.Utils.readFile(".ptm_projects/journal.prt");
+    assert lines.size() == 3 : "one session should be appended";
+    assert lines.subList(0, 2).equals(history) : "history should be kept";
+
+    // a log without the final line break is compacted instead
+    Files.write(
+        Paths.get(".ptm_projects", "manual.prt"), String.join("\n", history).getBytes("UTF-8"));
+    runSession("manual");
+    lines = ProjectTimeManager.Utils.readFile(".ptm_projects/manual.prt");
+    assert lines.size() == 3 : "one session should be added after compaction";
+    assert lines.subList(0, 2).equals(history) : "history should be kept after compaction";
+    assert ProjectTimeManager.Utils.isFileTerminated(".ptm_projects/manual.prt")
+        : "compacted log should end with line break";
+
+    // lines written by another process while the session runs are kept
+    final String other = "2020-07-22 08:00:00 - 2020-07-22 09:30:00";
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/shared.prt", history);
+    ProjectTimeManager.ProjectManager project = new ProjectTimeManager.ProjectManager("shared");
+    project.start();
+    ProjectTimeManager.Utils.appendFile(".ptm_projects/shared.prt", Arrays.asList(other));
+    Thread.sleep(1100l);
+    project.getLogManager().closeNow();
+    project.end();
+    lines = ProjectTimeManager.Utils.readFile(".ptm_projects/shared.prt");
+    assert lines.size() == 4 : "appended line of the other process should be kept";
+    assert lines.get(2).equals(other);
+
+    // also if the other process rewrote the log, which is then compacted
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/rewritten.prt", history);
+    project = new ProjectTimeManager.ProjectManager("rewritten");
+    project.start();
+    Files.write(
+        Paths.get(".ptm_projects", "rewritten.prt"),
+        String.join("\n", history.get(0), other).getBytes("UTF-8"));
+    Thread.sleep(1100l);
+    project.getLogManager().closeNow();
+    project.end();
+    lines = ProjectTimeManager.Utils.readFile(".ptm_projects/rewritten.prt");
+    assert lines.size() == 3 : "rewritten log of the other process should be kept";
+    assert lines.get(0).equals(history.get(0)) && lines.get(1).equals(other);
+
+    // a new project is created by the first session
+    runSession("new");
+    assert ProjectTimeManager.Utils.countFileLine(".ptm_projects/new.prt") == 1
+        : "new project should contain one session";
+  }
+}
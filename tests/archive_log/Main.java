@@ -0,0 +1,77 @@
+import java.io.File;
+import java.util.Arrays;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  private static long getSize(final File dir, final String extension) {
+    long size = 0l;
+    for (final File file : dir.listFiles()) {
+      if (file.getName().endsWith(extension)) {
+        size += file.length();
+      }
+    }
+    return size;
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+
+    // the codec keeps the intervals, with and without gzip
+    ProjectTimeManager.IntervalStore intervals = new ProjectTimeManager.IntervalStore();
+    intervals.add(0l, 5400l);
+    intervals.add(5460l, 5461l);
+    intervals.add(1595268730l, 1595276479l);
+    new File(".ptm_projects").mkdirs();
+    for (final boolean is_gzip : new boolean[] {true, false}) {
+      assert ProjectTimeManager.ArchiveLog.write(".ptm_projects/codec.pra", intervals, is_gzip);
+      try (ProjectTimeManager.ArchiveLog.Decoder decoder =
+          new ProjectTimeManager.ArchiveLog.Decoder(".ptm_projects/codec.pra")) {
+        assert decoder.getCountLeft() == 3l;
+        for (int i = 0; i < intervals.size(); ++i) {
+          assert decoder.next() : "interval " + i + " is missing";
+          assert decoder.getStartSecond() == intervals.getStartSecond(i);
+          assert decoder.getEndSecond() == intervals.getEndSecond(i);
+        }
+        assert !decoder.next() : "no more interval should be decoded";
+      }
+    }
+    rmDir(new File(".ptm_projects"));
+
+    // two years of sessions, the closed months are archived
+    new ProjectTimeManager.WorkloadGenerator()
+        .setProjectCount(1)
+        .setYearCount(2)
+        .setEndDate(java.time.LocalDate.now().plusDays(1))
+        .generate();
+    final String name = "project-000";
+    ProjectTimeManager.ProjectManager original = new ProjectTimeManager.ProjectManager(name);
+    final long total_ms = original.getTotalTimeMs(null);
+    final int count = original.getLogManager().getIntervalStore().size();
+    final long size_text = new File(".ptm_projects/" + name + ".prt").length();
+
+    assert ProjectTimeManager.ProjectManager.archiveProject(name) >= 24 : "months not archived";
+    final File directory = new File(".ptm_projects/" + name);
+    final String month = ProjectTimeManager.TimeLogManager.getCurrnetMonthId();
+    assert new File(directory, month + ".prt").exists() : "this month should stay text";
+    assert getSize(directory, ".prt") < size_text / 20l : "closed months should not be text";
+    final long size_archive = getSize(directory, ".pra");
+    assert size_archive * 8l < size_text - getSize(directory, ".prt")
+        : String.format("archive of %d bytes is too large for %d bytes", size_archive, size_text);
+
+    ProjectTimeManager.ProjectManager archived = new ProjectTimeManager.ProjectManager(name);
+    assert archived.getTotalTimeMs(null) == total_ms : "total from manifest is wrong";
+    assert archived.getLogManager().getIntervalStore().size() == count : "sessions are lost";
+    assert archived.getLogManager().getTotalTimeMs(null) == total_ms : "archive is not read";
+    assert ProjectTimeManager.ProjectManager.archiveProject(name) == 0 : "nothing more to archive";
+
+    rmDir(new File(".ptm_projects"));
+  }
+}
@@ -0,0 +1,64 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+
+    final List<String> history =
+        Arrays.asList(
+            "2020-07-20 18:12:10 - 2020-07-20 20:21:19",
+            "2020-07-21 21:55:11 - 2020-07-21 23:49:08",
+            "2020-12-31 23:00:00 - 2021-01-01 01:30:59");
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/binary.prt", history);
+
+    // text -> binary -> text is lossless
+    assert ProjectTimeManager.BinaryLog.convertTextToBinary(
+        ".ptm_projects/binary.prt", "binary.prb");
+    assert new File("binary.prb").length()
+            == ProjectTimeManager.BinaryLog.HEADER_SIZE
+                + ProjectTimeManager.BinaryLog.RECORD_SIZE * history.size()
+        : "binary log has wrong size";
+    assert ProjectTimeManager.BinaryLog.convertBinaryToText("binary.prb", "binary.txt");
+    assert ProjectTimeManager.Utils.readFile("binary.txt").equals(history)
+        : "conversion should be lossless";
+
+    // the project reads the binary log when it is newer than the text log
+    assert ProjectTimeManager.ProjectManager.createBinaryLog("binary");
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/binary.prt", history.subList(0, 1));
+    new File(".ptm_projects/binary.prt").setLastModified(System.currentTimeMillis() - 60000l);
+    ProjectTimeManager.ProjectManager project = new ProjectTimeManager.ProjectManager("binary");
+    assert project.getLogManager().getIntervals().size() == history.size()
+        : "binary log should be read";
+    assert project.getGroupedLog().size() == 3 : "intervals should start on three days";
+    assert project.getLogManager().getCountPersisted() == 0
+        : "text log which misses entries of the binary log should be read again to store";
+
+    // the text log from which the binary log is converted is appended, not rewritten
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/binary.prt", history);
+    new File(".ptm_projects/binary.prt").setLastModified(System.currentTimeMillis() - 60000l);
+    project = new ProjectTimeManager.ProjectManager("binary");
+    assert project.getLogManager().getCountPersisted() == history.size()
+        : "text log matching the binary log should be stored";
+
+    // and the text log again once it is modified
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/binary.prt", history.subList(0, 1));
+    new File(".ptm_projects/binary.prt").setLastModified(System.currentTimeMillis() + 60000l);
+    project = new ProjectTimeManager.ProjectManager("binary");
+    assert project.getLogManager().getIntervals().size() == 1 : "text log should be read";
+
+    new File("binary.prb").delete();
+    new File("binary.txt").delete();
+  }
+}
@@ -0,0 +1,86 @@
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  private static Instant day(final String date) {
+    return Instant.parse(date + "T00:00:00Z");
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/a.prt",
+        Arrays.asList(
+            "2020-07-20 18:12:10 - 2020-07-20 20:21:19",
+            "2020-07-21 21:55:11 - 2020-07-21 23:49:08"));
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/b.prt", Arrays.asList("2020-07-21 07:01:02 - 2020-07-21 07:29:22"));
+
+    ArrayList<Instant> dates = ProjectTimeManager.ProjectManager.getListDates();
+    assert dates.equals(Arrays.asList(day("2020-07-21"), day("2020-07-20")))
+        : "dates should be descending";
+    assert new File(".ptm_projects/.day_index").exists() : "index should be saved";
+    assert ProjectTimeManager.ProjectManager.getListProjectWithData(day("2020-07-21"))
+        .equals(Arrays.asList("a", "b"));
+    assert ProjectTimeManager.ProjectManager.getListProjectWithData(day("2020-07-20"))
+        .equals(Arrays.asList("a"));
+
+    // a changed log is indexed again
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/b.prt", Arrays.asList("2020-07-22 07:01:02 - 2020-07-22 07:29:22"));
+    assert ProjectTimeManager.ProjectManager.getListProjectWithData(day("2020-07-21"))
+        .equals(Arrays.asList("a"));
+    assert ProjectTimeManager.ProjectManager.getListDates().get(0).equals(day("2020-07-22"));
+
+    // threads updating the index at once lose no update and leave no temporary file
+    final AtomicBoolean is_failed = new AtomicBoolean(false);
+    ArrayList<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; ++i) {
+      threads.add(
+          new Thread(
+              () -> {
+                try {
+                  for (int j = 0; j < 20; ++j) {
+                    ProjectTimeManager.ProjectManager.getListDates();
+                  }
+                } catch (Throwable ex) {
+                  is_failed.set(true);
+                }
+              }));
+    }
+    for (final Thread thread : threads) {
+      thread.start();
+    }
+    for (int i = 1; i <= 9; ++i) {
+      ProjectTimeManager.Utils.appendFile(
+          ".ptm_projects/a.prt",
+          Arrays.asList(String.format("2020-08-0%d 08:00:00 - 2020-08-0%d 09:00:00", i, i)));
+    }
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+    assert !is_failed.get() : "parallel update of the index failed";
+    assert ProjectTimeManager.ProjectManager.getListDates().get(0).equals(day("2020-08-09"));
+    for (final String name : new File(".ptm_projects").list()) {
+      assert !name.endsWith(".tmp") : "temporary file should go: " + name;
+    }
+
+    // a deleted project is removed from the index
+    ProjectTimeManager.ProjectManager.deleteProject("b");
+    assert ProjectTimeManager.ProjectManager.getListDates().size() == 11;
+  }
+}
@@ -0,0 +1,37 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Main {
+  public static void main(String[] args) throws Exception {
+    ProjectTimeManager.FilteredListModel model = new ProjectTimeManager.FilteredListModel();
+    assert model.getSize() == 0 : "new list should be empty";
+
+    List<String> items = new ArrayList<>();
+    for (int i = 0; i < 10000; ++i) {
+      items.add(String.format("project-%04d", i));
+    }
+    model.setItems(items);
+    assert model.getSize() == 10000 : "all items should match without filter";
+
+    // typing narrows the matching items step by step
+    model.setFilter("PROJECT-00");
+    assert model.getSize() == 100 : "filter should ignore case";
+    model.setFilter("project-001");
+    assert model.getSize() == 10 : "narrower filter is wrong";
+    assert model.getElementAt(0).equals("project-0010") : "order of items should be kept";
+
+    // deleting characters widens the filter again
+    model.setFilter("7");
+    assert model.getSize() == 3439 : "wider filter is wrong: " + model.getSize();
+    model.setFilter("");
+    assert model.getSize() == 10000 : "empty filter should match all";
+
+    // new items keep the current filter
+    model.setFilter("2020-07");
+    model.setItems(Arrays.asList("2020-07-21", "2020-08-01", "2020-07-20"));
+    assert model.getSize() == 2 : "filter should be applied to new items";
+    assert model.getElementAt(0).equals("2020-07-21") && model.getElementAt(1).equals("2020-07-20")
+        : "matching new items are wrong";
+  }
+}
@@ -0,0 +1,52 @@
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+public class Main {
+  private static final DateTimeFormatter _formatter =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+  private static void expectError(final String line) {
+    try {
+      new ProjectTimeManager.Interval(line);
+    } catch (IllegalArgumentException ex) {
+      assert ex.getMessage().contains(line) : "error should show the line";
+      return;
+    }
+    assert 1 == 2 : "line should not be parsed: " + line;
+  }
+
+  public static void main(String[] args) {
+    // same text as the formatter in both directions
+    Random random = new Random(42l);
+    for (int i = 0; i < 100000; ++i) {
+      final long start = (long) (random.nextDouble() * 4e9) - 1000000000l;
+      final long end = start + random.nextInt(100000) + 1;
+      final String expected =
+          LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC).format(_formatter)
+              + " - "
+              + LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC).format(_formatter);
+      final String line = ProjectTimeManager.IntervalCodec.formatInterval(start, end);
+      assert line.equals(expected) : line + " differs from " + expected;
+      assert ProjectTimeManager.IntervalCodec.parseStartSecond(line) == start;
+      assert ProjectTimeManager.IntervalCodec.parseEndSecond(line) == end;
+    }
+
+    final String line = "2020-02-29 23:59:59 - 2020-03-01 00:00:00";
+    assert new ProjectTimeManager.Interval(line).formatInterval().equals(line);
+    assert new ProjectTimeManager.Interval(line).getDurationMs() == 1000l;
+
+    expectError("");
+    expectError("2020-07-20 18:12:10 - 2020-07-20 20:21:1");
+    expectError("2020-07-20 18:12:10 - 2020-07-20 20:21:190");
+    expectError("2020-07-20 18:12:10 + 2020-07-20 20:21:19");
+    expectError("2020/07/20 18:12:10 - 2020-07-20 20:21:19");
+    expectError("2020-07-20 18:12:10 - 2020-07-20 2O:21:19");
+    expectError("2020-13-20 18:12:10 - 2020-07-20 20:21:19");
+    expectError("2021-02-29 18:12:10 - 2021-03-20 20:21:19");
+    expectError("2020-07-20 24:12:10 - 2020-07-20 20:21:19");
+    expectError("2020-07-20 18:60:10 - 2020-07-20 20:21:19");
+    expectError("2020-07-20 18:12:60 - 2020-07-20 20:21:19");
+  }
+}
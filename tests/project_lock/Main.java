@@ -0,0 +1,169 @@
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  private static void waitFor(final File file) throws Exception {
+    for (int i = 0; i < 500 && !file.exists(); ++i) {
+      Thread.sleep(10l);
+    }
+    assert file.exists() : "other process did not start";
+  }
+
+  /** Run in another process: hold the lock or the session until the file "release" exists. */
+  private static void hold(final String what) throws Exception {
+    ProjectTimeManager.ProjectLock lock = null;
+    ProjectTimeManager.SessionRecord record = null;
+    if (what.equals("lock")) {
+      lock = ProjectTimeManager.ProjectLock.lockExclusive(".ptm_projects", "shared");
+    } else {
+      record = new ProjectTimeManager.SessionRecord(".ptm_projects/held.lk", 1595268730l);
+    }
+    new File(".ptm_projects/holding").createNewFile();
+    waitFor(new File(".ptm_projects/release"));
+    Thread.sleep(500l);
+    if (lock != null) {
+      lock.close();
+    } else {
+      record.close();
+    }
+  }
+
+  private static Process startHolder(final String what) throws Exception {
+    new File(".ptm_projects/holding").delete();
+    new File(".ptm_projects/release").delete();
+    final Process process =
+        new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(),
+                "-ea",
+                "-cp",
+                System.getProperty("java.class.path"),
+                "Main",
+                what)
+            .inheritIO()
+            .start();
+    waitFor(new File(".ptm_projects/holding"));
+    return process;
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 1) {
+      hold(args[0]);
+      return;
+    }
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+
+    // readers share the lock, the writer waits for them
+    ProjectTimeManager.ProjectLock first =
+        ProjectTimeManager.ProjectLock.lockShared(".ptm_projects", "shared");
+    ProjectTimeManager.ProjectLock second =
+        ProjectTimeManager.ProjectLock.lockShared(".ptm_projects", "shared");
+    final AtomicLong written = new AtomicLong(0l);
+    Thread writer =
+        new Thread(
+            () -> {
+              try (ProjectTimeManager.ProjectLock lock =
+                  ProjectTimeManager.ProjectLock.lockExclusive(".ptm_projects", "shared")) {
+                written.set(System.nanoTime());
+              }
+            });
+    writer.start();
+    Thread.sleep(200l);
+    assert written.get() == 0l : "writer should wait for the readers";
+    first.close();
+    Thread.sleep(100l);
+    assert written.get() == 0l : "writer should wait for the last reader";
+    final long released = System.nanoTime();
+    second.close();
+    writer.join();
+    assert written.get() >= released : "writer should run after the readers";
+    assert new File(".ptm_projects/.shared.lock").exists() : "lock file should be beside the logs";
+
+    // the owner of the exclusive lock can read and write again
+    try (ProjectTimeManager.ProjectLock lock =
+        ProjectTimeManager.ProjectLock.lockExclusive(".ptm_projects", "shared")) {
+      ProjectTimeManager.ProjectLock.lockShared(".ptm_projects", "shared").close();
+      ProjectTimeManager.ProjectLock.lockExclusive(".ptm_projects", "shared").close();
+    }
+
+    // a reader cannot become the writer, it fails instead of waiting for itself
+    ProjectTimeManager.ProjectLock reader =
+        ProjectTimeManager.ProjectLock.lockShared(".ptm_projects", "shared");
+    boolean is_upgrade_refused = false;
+    try {
+      ProjectTimeManager.ProjectLock.lockExclusive(".ptm_projects", "shared").close();
+    } catch (IllegalStateException ex) {
+      is_upgrade_refused = true;
+    }
+    reader.close();
+    assert is_upgrade_refused : "shared lock should not become exclusive";
+    ProjectTimeManager.ProjectLock.lockExclusive(".ptm_projects", "shared").close();
+
+    // a reader waits for the writer in another process
+    Process process = startHolder("lock");
+    final long start = System.nanoTime();
+    new File(".ptm_projects/release").createNewFile();
+    ProjectTimeManager.ProjectLock.lockShared(".ptm_projects", "shared").close();
+    assert System.nanoTime() - start >= 400_000_000l : "reader should wait for the other process";
+    assert process.waitFor() == 0 : "other process failed";
+
+    // a session held by another process is told from one left behind
+    process = startHolder("record");
+    assert ProjectTimeManager.SessionRecord.isHeld(".ptm_projects/held.lk")
+        : "session should be held by the other process";
+    final String held = ProjectTimeManager.SessionRecord.read(".ptm_projects/held.lk");
+    boolean is_refused = false;
+    try {
+      new ProjectTimeManager.SessionRecord(".ptm_projects/held.lk", 1595268800l).close();
+    } catch (Exception ex) {
+      is_refused = true;
+    }
+    assert is_refused : "session held by another process should not be taken";
+    assert ProjectTimeManager.SessionRecord.read(".ptm_projects/held.lk").equals(held)
+        : "session held by another process should not be written";
+    new File(".ptm_projects/release").createNewFile();
+    assert process.waitFor() == 0 : "other process failed";
+    assert !ProjectTimeManager.SessionRecord.isHeld(".ptm_projects/held.lk")
+        : "closed session should not be held";
+    assert new File(".ptm_projects/held.lk").exists() : "closed session should stay";
+
+    // a rewritten file is replaced at once, a reader never sees it half written
+    final String line = "2020-07-20 18:12:10 - 2020-07-20 20:21:19";
+    final List<String> short_log = Collections.nCopies(10, line);
+    final List<String> long_log = Collections.nCopies(5000, line);
+    final String filename = ".ptm_projects/rewritten.prt";
+    ProjectTimeManager.Utils.writeFile(filename, short_log);
+    final AtomicBoolean is_done = new AtomicBoolean(false);
+    Thread rewriter =
+        new Thread(
+            () -> {
+              for (int i = 0; i < 100; ++i) {
+                ProjectTimeManager.Utils.writeFile(filename, i % 2 == 0 ? long_log : short_log);
+              }
+              is_done.set(true);
+            });
+    rewriter.start();
+    while (!is_done.get()) {
+      final int size = ProjectTimeManager.Utils.countFileLine(filename);
+      assert size == 10 || size == 5000 : "reader should not see a half written file: " + size;
+    }
+    rewriter.join();
+    for (final String name : new File(".ptm_projects").list()) {
+      assert !name.endsWith(".tmp") : "temporary file should go: " + name;
+    }
+
+    rmDir(new File(".ptm_projects"));
+  }
+}
@@ -0,0 +1,74 @@
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/summary.prt",
+        Arrays.asList(
+            "2020-07-20 08:00:00 - 2020-07-20 09:00:00",
+            "2020-07-20 10:00:00 - 2020-07-20 10:30:00",
+            "2020-07-22 21:55:11 - 2020-07-22 23:49:08"));
+    // another project adds days which are not in this project
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/other.prt", Arrays.asList("2020-07-21 08:00:00 - 2020-07-21 09:00:00"));
+    ProjectTimeManager.ProjectManager project =
+        new ProjectTimeManager.ProjectManager("summary");
+
+    final String eol = System.lineSeparator();
+    final String day_20 =
+        "2020-07-20 "
+            + ProjectTimeManager.Interval.formatDuration(java.time.Duration.ofMinutes(90))
+            + eol
+            + "2020-07-20 08:00:00 - 2020-07-20 09:00:00"
+            + eol
+            + "2020-07-20 10:00:00 - 2020-07-20 10:30:00"
+            + eol
+            + eol;
+    final String day_22 =
+        "2020-07-22 "
+            + ProjectTimeManager.Interval.formatDuration(java.time.Duration.ofSeconds(6837))
+            + eol
+            + "2020-07-22 21:55:11 - 2020-07-22 23:49:08"
+            + eol
+            + eol;
+    assert project.getProjectSummary(null).equals(day_20 + day_22) : "summary of all days is wrong";
+
+    ArrayList<Instant> dates =
+        new ArrayList<>(
+            Arrays.asList(
+                Instant.parse("2020-07-22T00:00:00Z"),
+                Instant.parse("2020-07-21T00:00:00Z"),
+                Instant.parse("2020-07-22T00:00:00Z")));
+    assert project.getSummaryDays(dates).size() == 1 : "only days with data should be summarized";
+    assert project.getProjectSummary(dates).equals(day_22) : "summary of given days is wrong";
+
+    // the pages together are the whole summary
+    List<Long> days = new ArrayList<>();
+    for (long day = 0; day < 120; ++day) {
+      days.add(day);
+    }
+    assert ProjectTimeManager.ProjectManager.getSummaryPageCount(days) == 3 : "page count is wrong";
+    final List<Long> days_project = project.getSummaryDays(null);
+    assert ProjectTimeManager.ProjectManager.getSummaryPageCount(days_project) == 1;
+    assert project.getSummaryPage(days_project, 0).equals(day_20 + day_22) : "page is wrong";
+    assert project.getSummaryPage(days_project, 1).isEmpty() : "page after end should be empty";
+
+    rmDir(new File(".ptm_projects"));
+  }
+}
@@ -0,0 +1,176 @@
+import java.io.File;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  private static int _port = 0;
+
+  private static int _status = 0;
+
+  private static String get(final String path) throws Exception {
+    HttpURLConnection connection =
+        (HttpURLConnection) new URL("http://localhost:" + _port + path).openConnection();
+    _status = connection.getResponseCode();
+    try (InputStream in =
+        (_status < 400) ? connection.getInputStream() : connection.getErrorStream()) {
+      final java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+      final byte[] buffer = new byte[4096];
+      for (int count = in.read(buffer); count >= 0; count = in.read(buffer)) {
+        out.write(buffer, 0, count);
+      }
+      return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/alpha.prt",
+        Arrays.asList(
+            "2020-07-20 08:00:00 - 2020-07-20 09:00:00",
+            "2020-07-27 08:00:00 - 2020-07-27 08:30:00"));
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/beta.prt", Arrays.asList("2020-07-21 08:00:00 - 2020-07-21 08:00:10"));
+    ProjectTimeManager.TimeLogManager.updateThisSession(
+        ".ptm_projects/beta.lk", "2020-07-22 08:00:00 - 2020-07-22 08:05:00");
+
+    ProjectTimeManager.QueryServer server = new ProjectTimeManager.QueryServer(0);
+    server.start();
+    _port = server.getPort();
+
+    assert get("/projects")
+            .equals(
+                "[{\"name\":\"alpha\",\"total_ms\":5400000,\"running\":false},"
+                    + "{\"name\":\"beta\",\"total_ms\":10000,\"running\":true}]")
+        : "projects are wrong: " + get("/projects");
+    assert get("/projects/alpha")
+            .equals(
+                "{\"name\":\"alpha\",\"total_ms\":5400000,\"count\":2,\"first_day\":\"2020-07-20\","
+                    + "\"last_day\":\"2020-07-27\",\"session\":null}")
+        : "project is wrong: " + get("/projects/alpha");
+    assert get("/projects/alpha/rollups?period=week")
+            .equals(
+                "[{\"from\":\"2020-07-20\",\"to\":\"2020-07-27\",\"total_ms\":3600000,\"count\":1},"
+                    + "{\"from\":\"2020-07-27\",\"to\":\"2020-07-28\",\"total_ms\":1800000,"
+                    + "\"count\":1}]")
+        : "rollups are wrong: " + get("/projects/alpha/rollups?period=week");
+    assert get("/totals?from=2020-07-21&to=2020-07-27")
+            .equals("{\"projects\":{\"alpha\":0,\"beta\":10000},\"total_ms\":10000}")
+        : "totals are wrong: " + get("/totals?from=2020-07-21&to=2020-07-27");
+    assert get("/dates").equals("[\"2020-07-27\",\"2020-07-21\",\"2020-07-20\"]")
+        : "dates are wrong: " + get("/dates");
+    assert get("/sessions")
+            .equals(
+                "[{\"project\":\"beta\",\"session\":{\"start\":\"2020-07-22 08:00:00\","
+                    + "\"end\":\"2020-07-22 08:05:00\"}}]")
+        : "sessions are wrong: " + get("/sessions");
+
+    // the session is read from the journal like stop does, it may have a later end
+    try (ProjectTimeManager.SessionJournal journal =
+        new ProjectTimeManager.SessionJournal(".ptm_projects/beta.wal")) {
+      journal.append(
+          ProjectTimeManager.SessionJournal.END,
+          ProjectTimeManager.IntervalCodec.parseEpochSecond("2020-07-22 08:00:00", 0),
+          ProjectTimeManager.IntervalCodec.parseEpochSecond("2020-07-22 08:10:00", 0),
+          true);
+    }
+    assert get("/sessions").contains("\"end\":\"2020-07-22 08:10:00\"")
+        : "session should be read from the journal: " + get("/sessions");
+    new File(".ptm_projects/beta.wal").delete();
+
+    // all projects are answered page by page, the cache does not grow
+    final int capacity = ProjectTimeManager.ProjectCache.getCapacity();
+    ProjectTimeManager.ProjectCache.setCapacity(1);
+    assert get("/totals")
+            .equals("{\"projects\":{\"alpha\":5400000,\"beta\":10000},\"total_ms\":5410000}")
+        : "totals of all pages are wrong: " + get("/totals");
+    assert ProjectTimeManager.ProjectCache.getCapacity() == 1 : "cache should not grow";
+    ProjectTimeManager.ProjectCache.setCapacity(capacity);
+
+    get("/projects/gamma");
+    assert _status == 404 : "unknown project should not be found";
+    get("/projects/alpha/rollups?period=decade");
+    assert _status == 400 : "wrong period should be rejected";
+    assert get("/stats").startsWith("{\"cache\":\"project cache: ") : "stats are wrong";
+    get("/nothing");
+    assert _status == 404 : "unknown path should not be found";
+
+    // a range beyond the days of the project is clamped to them
+    final String rollups_all = get("/projects/alpha/rollups?from=0001-01-01&to=9999-01-01");
+    assert rollups_all.equals(get("/projects/alpha/rollups")) : "range should be clamped";
+    assert get("/projects/alpha/rollups?from=2020-07-27&to=2020-07-20").equals("[]");
+
+    // the answers follow the files
+    ProjectTimeManager.Utils.appendFile(
+        ".ptm_projects/beta.prt", Arrays.asList("2020-07-23 08:00:00 - 2020-07-23 08:00:20"));
+    assert get("/projects/beta").contains("\"total_ms\":30000") : "appended session is missing";
+
+    // many parallel readers of one changed project cost one parse
+    ProjectTimeManager.Utils.appendFile(
+        ".ptm_projects/alpha.prt", Arrays.asList("2020-07-28 08:00:00 - 2020-07-28 08:00:30"));
+    ExecutorService readers = Executors.newFixedThreadPool(8);
+    List<Future<String>> answers = new ArrayList<>();
+    for (int i = 0; i < 32; ++i) {
+      answers.add(readers.submit(() -> get("/projects/alpha")));
+    }
+    for (final Future<String> answer : answers) {
+      assert answer.get().contains("\"total_ms\":5430000") : "parallel answer is wrong";
+    }
+
+    // parallel requests for a changed project wait for one load
+    ProjectTimeManager.Utils.appendFile(
+        ".ptm_projects/alpha.prt", Arrays.asList("2020-07-29 08:00:00 - 2020-07-29 08:00:30"));
+    List<Future<ProjectTimeManager.ProjectManager>> projects = new ArrayList<>();
+    for (int i = 0; i < 8; ++i) {
+      projects.add(readers.submit(() -> ProjectTimeManager.ProjectCache.get("alpha")));
+    }
+    for (final Future<ProjectTimeManager.ProjectManager> project : projects) {
+      assert project.get() == projects.get(0).get() : "parallel readers should share one load";
+    }
+
+    // parallel requests of the dates update the saved index of days one at a time
+    ProjectTimeManager.Utils.appendFile(
+        ".ptm_projects/beta.prt", Arrays.asList("2020-07-30 08:00:00 - 2020-07-30 08:00:20"));
+    List<Future<String>> dates = new ArrayList<>();
+    for (int i = 0; i < 16; ++i) {
+      dates.add(readers.submit(() -> get("/dates")));
+    }
+    for (final Future<String> date : dates) {
+      assert date.get().startsWith("[\"2020-07-30\",\"2020-07-29\"") : "parallel dates are wrong";
+    }
+    for (final String name : new File(".ptm_projects").list()) {
+      assert !name.endsWith(".tmp") : "temporary file should go: " + name;
+    }
+    readers.shutdown();
+
+    // a failed assertion while loading is answered, the client does not wait forever
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/gamma.prt",
+        Arrays.asList(
+            "2020-07-21 08:00:00 - 2020-07-21 09:00:00",
+            "2020-07-20 08:00:00 - 2020-07-20 09:00:00"));
+    get("/projects/gamma");
+    assert _status == 500 : "broken project should be an error";
+
+    server.stop();
+    rmDir(new File(".ptm_projects"));
+  }
+}
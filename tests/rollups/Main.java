@@ -0,0 +1,90 @@
+import java.io.File;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Random;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  /** Sum the intervals starting in [day_from, day_to) one by one. */
+  private static long sumBetweenDays(
+      final ProjectTimeManager.IntervalStore store, final long day_from, final long day_to) {
+    long sum = 0l;
+    for (int i = 0; i < store.size(); ++i) {
+      if (store.getStartDay(i) >= day_from && store.getStartDay(i) < day_to) {
+        sum += store.getDurationMs(i);
+      }
+    }
+    return sum;
+  }
+
+  public static void main(String[] args) {
+    rmDir(new File(".ptm_projects"));
+    new ProjectTimeManager.WorkloadGenerator()
+        .setSeed(11l)
+        .setProjectCount(1)
+        .setYearCount(2)
+        .generate();
+
+    ProjectTimeManager.TimeLogManager log_manager = new ProjectTimeManager.TimeLogManager();
+    log_manager.readLog(".ptm_projects/project-000.prt");
+    final ProjectTimeManager.IntervalStore store = log_manager.getIntervalStore();
+    final long day_first = store.getStartDay(0) - 3;
+    final long day_last = store.getStartDay(store.size() - 1) + 3;
+
+    assert log_manager.getTotalTimeMs(null) == sumBetweenDays(store, day_first, day_last + 1);
+
+    Random random = new Random(3l);
+    for (int i = 0; i < 1000; ++i) {
+      final long day_from = day_first + random.nextInt((int) (day_last - day_first));
+      final long day_to = day_from + random.nextInt(60);
+      assert log_manager.getTotalTimeMsBetweenDays(day_from, day_to)
+          == sumBetweenDays(store, day_from, day_to);
+
+      // repeated dates are counted once
+      ArrayList<Instant> dates = new ArrayList<>();
+      dates.add(Instant.ofEpochSecond(day_from * ProjectTimeManager.TimeLogManager.SECONDS_PER_DAY));
+      dates.add(Instant.ofEpochSecond(day_from * ProjectTimeManager.TimeLogManager.SECONDS_PER_DAY));
+      assert log_manager.getTotalTimeMs(dates) == sumBetweenDays(store, day_from, day_from + 1);
+    }
+
+    // the calendar periods cover the range without gaps
+    final LocalDate date_from = LocalDate.ofEpochDay(day_first);
+    final LocalDate date_to = LocalDate.ofEpochDay(day_last);
+    for (final ProjectTimeManager.Rollup.Period period :
+        ProjectTimeManager.Rollup.Period.values()) {
+      final ArrayList<ProjectTimeManager.Rollup> rollups =
+          log_manager.getRollups(date_from, date_to, period);
+      assert rollups.get(0).getDateFrom().equals(date_from);
+      assert rollups.get(rollups.size() - 1).getDateTo().equals(date_to);
+      long total_ms = 0l;
+      int count = 0;
+      for (int i = 0; i < rollups.size(); ++i) {
+        final ProjectTimeManager.Rollup rollup = rollups.get(i);
+        assert i == 0 || rollup.getDateFrom().equals(rollups.get(i - 1).getDateTo());
+        assert rollup.getTotalMs()
+            == sumBetweenDays(
+                store, rollup.getDateFrom().toEpochDay(), rollup.getDateTo().toEpochDay());
+        total_ms += rollup.getTotalMs();
+        count += rollup.getCount();
+      }
+      assert total_ms == log_manager.getTotalTimeMs(null) : period + " misses time";
+      assert count == store.size() : period + " misses intervals";
+    }
+    assert log_manager
+        .getRollups(date_from, date_to, ProjectTimeManager.Rollup.Period.WEEK)
+        .get(1)
+        .getDateFrom()
+        .getDayOfWeek()
+        .equals(DayOfWeek.MONDAY);
+  }
+}
@@ -0,0 +1,97 @@
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  private static long day(final String date) {
+    return Instant.parse(date + "T00:00:00Z").getEpochSecond() / 86400l;
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/seg.prt",
+        Arrays.asList(
+            "2020-06-30 22:00:00 - 2020-06-30 23:00:00",
+            "2020-07-20 18:12:10 - 2020-07-20 20:21:19",
+            "2020-07-21 21:55:11 - 2020-07-21 23:49:08",
+            "2020-08-03 08:00:00 - 2020-08-03 10:00:00"));
+    assert ProjectTimeManager.ProjectManager.createSegmentedLog("seg") : "log should be segmented";
+    assert !new File(".ptm_projects/seg.prt").exists() : "text log should be removed";
+    for (final String month : new String[] {"2020-06", "2020-07", "2020-08"}) {
+      assert new File(".ptm_projects/seg/" + month + ".prt").exists() : "missing " + month;
+    }
+    assert ProjectTimeManager.ProjectManager.isProjectAvailable("seg");
+    assert ProjectTimeManager.ProjectManager.getListProject().equals(Arrays.asList("seg"));
+
+    // days and totals come from the manifest; the summary reads only the segment of its days
+    final File segment_june = new File(".ptm_projects/seg/2020-06.prt");
+    final File hidden_june = new File(".ptm_projects/seg/hidden");
+    assert segment_june.renameTo(hidden_june);
+    ProjectTimeManager.ProjectManager project = new ProjectTimeManager.ProjectManager("seg");
+    assert project.getDays()
+        .equals(
+            Arrays.asList(
+                day("2020-06-30"), day("2020-07-20"), day("2020-07-21"), day("2020-08-03")));
+    assert project.getTotalTimeMs(null) == (3600l + 7749l + 6837l + 7200l) * 1000l;
+    ArrayList<Instant> dates = new ArrayList<>();
+    dates.add(Instant.ofEpochSecond(day("2020-07-21") * 86400l));
+    assert project.getTotalTimeMs(dates) == 6837000l : "total of one day is wrong";
+    assert project.getTotalTimeMsBetweenDays(day("2020-07-01"), day("2020-08-01")) == 14586000l;
+    assert project.getProjectSummary(dates).startsWith("2020-07-21 01:53:57")
+        : "summary of one day is wrong: " + project.getProjectSummary(dates);
+    assert hidden_june.renameTo(segment_june);
+
+    // a new session touches only the segment of its month
+    final long modified_july = new File(".ptm_projects/seg/2020-07.prt").lastModified();
+    final long length_july = new File(".ptm_projects/seg/2020-07.prt").length();
+    ProjectTimeManager.ProjectManager cached = ProjectTimeManager.ProjectCache.get("seg");
+    assert cached.getLogManager().getIntervalStore().size() == 4 : "all segments should be read";
+    Thread.sleep(20);
+    ProjectTimeManager.TimeLogManager.updateThisSession(
+        ".ptm_projects/seg.lk", "2020-08-04 08:00:00 - 2020-08-04 09:00:00");
+    ProjectTimeManager.ProjectManager.finishLastSession("seg");
+    assert new File(".ptm_projects/seg/2020-07.prt").lastModified() == modified_july
+        : "old segment should not be written";
+    assert new File(".ptm_projects/seg/2020-07.prt").length() == length_july;
+    assert ProjectTimeManager.Utils.readFile(".ptm_projects/seg/2020-08.prt").size() == 2;
+
+    ProjectTimeManager.ProjectManager updated = ProjectTimeManager.ProjectCache.get("seg");
+    assert updated != cached : "changed project should be a new object";
+    assert updated.getLogManager().getIntervalStore().size() == 5 : "new session should be read";
+    assert updated.getTotalTimeMs(null) == (3600l + 7749l + 6837l + 7200l + 3600l) * 1000l;
+    assert cached.getLogManager().getIntervalStore().size() == 4 : "shared copy is modified";
+    assert ProjectTimeManager.ProjectManager.getListDates().size() == 5;
+
+    // a session appended by another writer while this one runs is kept in the manifest
+    project = new ProjectTimeManager.ProjectManager("seg");
+    project.start();
+    final ProjectTimeManager.SegmentedLog other =
+        new ProjectTimeManager.SegmentedLog(".ptm_projects/seg");
+    assert other.appendSession(
+        ProjectTimeManager.IntervalCodec.parseEpochSecond("2020-08-05 08:00:00", 0),
+        ProjectTimeManager.IntervalCodec.parseEpochSecond("2020-08-05 09:00:00", 0));
+    Thread.sleep(1100l);
+    project.getLogManager().closeNow();
+    project.end();
+    assert new ProjectTimeManager.SegmentedLog(".ptm_projects/seg").size() == 7
+        : "manifest should count the sessions of both writers";
+    assert project.getDays().contains(day("2020-08-05")) : "session of the other writer is lost";
+
+    ProjectTimeManager.ProjectManager.deleteProject("seg");
+    assert !new File(".ptm_projects/seg").exists() : "segments should be deleted";
+    rmDir(new File(".ptm_projects"));
+  }
+}
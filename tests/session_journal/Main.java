@@ -0,0 +1,131 @@
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  private static long second(final String time) {
+    return ProjectTimeManager.IntervalCodec.parseEpochSecond(time, 0);
+  }
+
+  private static void end(final String project_name, final String start, final String end)
+      throws Exception {
+    try (ProjectTimeManager.SessionJournal journal =
+        new ProjectTimeManager.SessionJournal(".ptm_projects/" + project_name + ".wal")) {
+      journal.append(ProjectTimeManager.SessionJournal.END, second(start), second(end), true);
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+    final String filename = ".ptm_projects/replay.wal";
+
+    // the replay follows the events of the session until it is committed
+    final long start = second("2020-07-20 18:12:10");
+    ProjectTimeManager.SessionJournal journal = new ProjectTimeManager.SessionJournal(filename);
+    journal.append(ProjectTimeManager.SessionJournal.START, start, start, true);
+    journal.append(ProjectTimeManager.SessionJournal.BEAT, start, start + 60l, false);
+    journal.append(ProjectTimeManager.SessionJournal.BEAT, start, start + 120l, false);
+    ProjectTimeManager.SessionJournal.Session session =
+        ProjectTimeManager.SessionJournal.replay(filename);
+    assert session.getStartSecond() == start && session.getEndSecond() == start + 120l;
+    assert !session.isEnded() : "session without end should be running";
+    journal.append(ProjectTimeManager.SessionJournal.END, start, start + 150l, true);
+    session = ProjectTimeManager.SessionJournal.replay(filename);
+    assert session.isEnded() && session.getEndSecond() == start + 150l : "end should be replayed";
+    assert ProjectTimeManager.SessionJournal.replay(filename).getEndSecond() == start + 150l
+        : "replay should be repeatable";
+    journal.append(ProjectTimeManager.SessionJournal.COMMIT, 0l, 0l, false);
+    journal.close();
+    assert ProjectTimeManager.SessionJournal.replay(filename) == null
+        : "committed session should not be replayed";
+
+    // a torn record ends the replay and is cut off when the journal is opened again
+    final long length = new File(filename).length();
+    assert length == 5l * ProjectTimeManager.SessionJournal.RECORD_SIZE;
+    try (RandomAccessFile file = new RandomAccessFile(filename, "rw")) {
+      file.seek(ProjectTimeManager.SessionJournal.RECORD_SIZE * 4l + 3l);
+      file.write(0xff);
+      file.seek(length);
+      file.write(new byte[] {1, 2, 3});
+    }
+    session = ProjectTimeManager.SessionJournal.replay(filename);
+    assert session != null && session.isEnded() : "broken commit should not be replayed";
+    journal = new ProjectTimeManager.SessionJournal(filename);
+    assert new File(filename).length() == 4l * ProjectTimeManager.SessionJournal.RECORD_SIZE
+        : "broken records should be cut off";
+    journal.append(ProjectTimeManager.SessionJournal.COMMIT, 0l, 0l, false);
+    journal.close();
+    assert ProjectTimeManager.SessionJournal.replay(filename) == null
+        : "record after the cut should be replayed";
+
+    // a session started here keeps its journal until it is logged
+    ProjectTimeManager.ProjectManager project = new ProjectTimeManager.ProjectManager("runtime");
+    project.start();
+    assert ProjectTimeManager.SessionJournal.replay(".ptm_projects/runtime.wal") != null
+        : "start should be in the journal";
+    Thread.sleep(1100l);
+    project.getLogManager().closeNow();
+    project.end();
+    assert !new File(".ptm_projects/runtime.wal").exists() : "journal should be removed";
+    assert ProjectTimeManager.Utils.countFileLine(".ptm_projects/runtime.prt") == 1;
+
+    // a session left by a crashed process is logged from the journal, once
+    final List<String> history =
+        Arrays.asList(
+            "2020-07-20 18:12:10 - 2020-07-20 20:21:19",
+            "2020-07-21 21:55:11 - 2020-07-21 23:49:08");
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/crash.prt", history);
+    end("crash", "2020-07-22 08:00:00", "2020-07-22 09:30:00");
+    assert ProjectTimeManager.ProjectManager.getPendingSessionTime("crash")
+        .equals("2020-07-22 08:00:00 - 2020-07-22 09:30:00");
+    assert ProjectTimeManager.ProjectManager.finishLastSession("crash");
+    assert !new File(".ptm_projects/crash.wal").exists() : "journal should be removed";
+    List<String> lines = ProjectTimeManager.Utils.readFile(".ptm_projects/crash.prt");
+    assert lines.size() == 3 && lines.subList(0, 2).equals(history) : "session should be logged";
+    end("crash", "2020-07-22 08:00:00", "2020-07-22 09:30:00");
+    assert ProjectTimeManager.ProjectManager.finishLastSession("crash");
+    assert ProjectTimeManager.Utils.countFileLine(".ptm_projects/crash.prt") == 3
+        : "recovery repeated after a crash should not log the session again";
+    assert !ProjectTimeManager.ProjectManager.finishLastSession("crash") : "nothing to recover";
+
+    // a start logs the session left behind first, it is not held by any process
+    end("stale", "2020-07-22 08:00:00", "2020-07-22 09:30:00");
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/stale.lk", Arrays.asList("2020-07-22 08:00:00 - 2020-07-22 09:00:00"));
+    assert !ProjectTimeManager.ProjectManager.isSessionHeld("stale");
+    project = new ProjectTimeManager.ProjectManager("stale");
+    project.start();
+    Thread.sleep(1100l);
+    project.getLogManager().closeNow();
+    project.end();
+    lines = ProjectTimeManager.Utils.readFile(".ptm_projects/stale.prt");
+    assert lines.size() == 2 : "session left behind and new session should be logged";
+    assert lines.get(0).equals("2020-07-22 08:00:00 - 2020-07-22 09:30:00");
+
+    // a crash between the segment and its manifest is repaired by the recovery
+    ProjectTimeManager.Utils.writeFile(".ptm_projects/seg.prt", history);
+    assert ProjectTimeManager.ProjectManager.createSegmentedLog("seg");
+    ProjectTimeManager.Utils.appendFile(
+        ".ptm_projects/seg/2020-07.prt", Arrays.asList("2020-07-22 08:00:00 - 2020-07-22 09:30:00"));
+    end("seg", "2020-07-22 08:00:00", "2020-07-22 09:30:00");
+    assert ProjectTimeManager.ProjectManager.finishLastSession("seg");
+    assert ProjectTimeManager.Utils.countFileLine(".ptm_projects/seg/2020-07.prt") == 3
+        : "segment should not get the session twice";
+    assert new ProjectTimeManager.ProjectManager("seg").getTotalTimeMs(null)
+            == (7749l + 6837l + 5400l) * 1000l
+        : "manifest should count the recovered session";
+
+    rmDir(new File(".ptm_projects"));
+  }
+}
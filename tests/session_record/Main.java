@@ -0,0 +1,80 @@
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+    final String filename = ".ptm_projects/heartbeat.lk";
+
+    // the record is one line of log with fixed size
+    final long start = ProjectTimeManager.IntervalCodec.parseEpochSecond("2020-07-20 18:12:10", 0);
+    ProjectTimeManager.SessionRecord record =
+        new ProjectTimeManager.SessionRecord(filename, start);
+    assert new File(filename).length() == ProjectTimeManager.SessionRecord.SIZE
+        : "record should have fixed size";
+    final String first = ProjectTimeManager.SessionRecord.read(filename);
+    assert first.startsWith("2020-07-20 18:12:10 - ") : "start of session is wrong: " + first;
+
+    // the heartbeat only moves the end time forward, the file keeps its size
+    Thread.sleep(1100l);
+    record.beat();
+    final String second = ProjectTimeManager.SessionRecord.read(filename);
+    assert new File(filename).length() == ProjectTimeManager.SessionRecord.SIZE
+        : "heartbeat should not change the size";
+    assert ProjectTimeManager.IntervalCodec.parseEndSecond(second)
+            > ProjectTimeManager.IntervalCodec.parseEndSecond(first)
+        : "heartbeat should update the end time";
+    boolean is_refused = false;
+    try {
+      new ProjectTimeManager.SessionRecord(filename, start + 60l).close();
+    } catch (Exception ex) {
+      is_refused = true;
+    }
+    assert is_refused : "record held in this process should not be taken again";
+    assert ProjectTimeManager.SessionRecord.read(filename).equals(second)
+        : "held record should not be written";
+    List<String> lines = ProjectTimeManager.Utils.readFile(filename);
+    assert lines.equals(Arrays.asList(second)) : "record should be readable as text";
+
+    // the session left by a crashed process is finished from the record
+    ProjectTimeManager.Utils.writeFile(
+        ".ptm_projects/heartbeat.prt", Arrays.asList("2020-07-19 08:00:00 - 2020-07-19 09:00:00"));
+    assert ProjectTimeManager.ProjectManager.getPendingSessionTime("heartbeat").equals(second)
+        : "pending session should be read from the record";
+    record.close();
+    record.beat();
+    assert ProjectTimeManager.SessionRecord.read(filename).length() == 41
+        : "closed record should stay readable";
+    ProjectTimeManager.ProjectManager.finishLastSession("heartbeat");
+    lines = ProjectTimeManager.Utils.readFile(".ptm_projects/heartbeat.prt");
+    assert lines.size() == 2 : "pending session should be logged";
+    assert lines.get(1).startsWith("2020-07-20 18:12:10 - ") : "logged session is wrong";
+    assert !new File(filename).exists() : "lock file should be deleted";
+
+    // a started project keeps its session in the record until it ends
+    ProjectTimeManager.ProjectManager project = new ProjectTimeManager.ProjectManager("beating");
+    project.start();
+    assert new File(".ptm_projects/beating.lk").length() == ProjectTimeManager.SessionRecord.SIZE
+        : "started project should map the record";
+    Thread.sleep(1100l);
+    project.updateThisSession();
+    project.getLogManager().closeNow();
+    project.end();
+    assert !project.isRunning() : "ended project should delete the record";
+    assert ProjectTimeManager.Utils.readFile(".ptm_projects/beating.prt").size() == 1
+        : "ended session should be logged";
+
+    rmDir(new File(".ptm_projects"));
+  }
+}
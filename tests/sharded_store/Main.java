@@ -0,0 +1,79 @@
+import java.io.File;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.TreeMap;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  private static Instant day(final String date) {
+    return Instant.parse(date + "T00:00:00Z");
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File("shard_a"));
+    rmDir(new File("shard_b"));
+    new File("shard_a").mkdirs();
+    new File("shard_b").mkdirs();
+
+    ProjectTimeManager.Utils.writeFile(
+        "shard_a/shared.prt",
+        Arrays.asList(
+            "2020-07-20 08:00:00 - 2020-07-20 10:00:00",
+            "2020-07-21 08:00:00 - 2020-07-21 09:00:00"));
+    ProjectTimeManager.Utils.writeFile(
+        "shard_a/alone.prt", Arrays.asList("2020-07-22 08:00:00 - 2020-07-22 08:30:00"));
+    ProjectTimeManager.Utils.writeFile(
+        "shard_b/shared.prt", Arrays.asList("2020-07-21 13:00:00 - 2020-07-21 16:00:00"));
+
+    ProjectTimeManager.ShardedStore store =
+        new ProjectTimeManager.ShardedStore(Arrays.asList("shard_a", "shard_b"));
+    assert store.getListProject().equals(Arrays.asList("alone", "shared"))
+        : "projects should be merged by name";
+    assert store.getListDates()
+            .equals(Arrays.asList(day("2020-07-22"), day("2020-07-21"), day("2020-07-20")))
+        : "dates should be merged, latest first";
+    assert store.getListProjectWithData(day("2020-07-21")).equals(Arrays.asList("shared"));
+    assert store.getDays("shared").size() == 2 : "days of one project should be merged";
+    assert store.isProjectAvailable("alone") && !store.isProjectAvailable("missing");
+
+    TreeMap<String, Long> totals = store.getTotalTimeMs(Long.MIN_VALUE / 2l, Long.MAX_VALUE / 2l);
+    assert totals.get("shared") == (2l + 1l + 3l) * 3600000l : "totals should be summed";
+    assert totals.get("alone") == 1800000l;
+    totals = store.getTotalTimeMs(day("2020-07-21").getEpochSecond() / 86400l, Long.MAX_VALUE / 2l);
+    assert totals.get("shared") == (1l + 3l) * 3600000l : "totals should respect the range";
+
+    // an update in one shard loads only the changed project again
+    final long count_miss = ProjectTimeManager.ProjectCache.getMissCount();
+    ProjectTimeManager.Utils.appendFile(
+        "shard_b/shared.prt", Arrays.asList("2020-07-23 13:00:00 - 2020-07-23 14:00:00"));
+    totals = store.getTotalTimeMs(Long.MIN_VALUE / 2l, Long.MAX_VALUE / 2l);
+    assert totals.get("shared") == (2l + 1l + 3l + 1l) * 3600000l : "update should be read";
+    assert ProjectTimeManager.ProjectCache.getMissCount() == count_miss + 1l
+        : "only the changed project should be loaded again";
+    assert store.getListDates().get(0).equals(day("2020-07-23"));
+
+    // the next run reads the totals from the saved index of each shard without parsing the logs
+    final int capacity = ProjectTimeManager.ProjectCache.getCapacity();
+    ProjectTimeManager.ProjectCache.setCapacity(0);
+    ProjectTimeManager.ProjectCache.setCapacity(capacity);
+    final long count_miss_next = ProjectTimeManager.ProjectCache.getMissCount();
+    store = new ProjectTimeManager.ShardedStore(Arrays.asList("shard_a", "shard_b"));
+    totals = store.getTotalTimeMs(day("2020-07-21").getEpochSecond() / 86400l, Long.MAX_VALUE / 2l);
+    assert totals.get("shared") == (1l + 3l + 1l) * 3600000l : "saved totals are wrong";
+    assert totals.get("alone") == 1800000l;
+    assert store.getDays("shared").size() == 3 : "saved days are wrong";
+    assert ProjectTimeManager.ProjectCache.getMissCount() == count_miss_next
+        : "unchanged logs should not be parsed again";
+
+    rmDir(new File("shard_a"));
+    rmDir(new File("shard_b"));
+  }
+}
@@ -0,0 +1,105 @@
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  public static void main(String[] args) throws Exception {
+    rmDir(new File(".ptm_projects"));
+    new File(".ptm_projects").mkdirs();
+    final String filename = ".ptm_projects/tail.prt";
+
+    ProjectTimeManager.Utils.writeFile(
+        filename,
+        Arrays.asList(
+            "2020-07-20 18:12:10 - 2020-07-20 20:21:19",
+            "2020-07-21 21:55:11 - 2020-07-21 23:49:08"));
+    ProjectTimeManager.TimeLogManager manager = new ProjectTimeManager.TimeLogManager();
+    manager.readLog(filename);
+    assert manager.getCountPersisted() == 2 : "two sessions should be read";
+
+    // unchanged file
+    assert manager.refreshLog(filename) : "refresh of unchanged log should succeed";
+    assert manager.getIntervalStore().size() == 2 : "nothing should be read again";
+
+    // appended lines, the last one is incomplete
+    ProjectTimeManager.Utils.appendFile(
+        filename,
+        Arrays.asList(
+            "2020-07-22 08:00:00 - 2020-07-22 09:00:00", "2020-07-23 08:00:00 - 2020-07"));
+    // remove the line break after the incomplete line
+    try (RandomAccessFile raf = new RandomAccessFile(filename, "rw")) {
+      raf.setLength(raf.length() - System.lineSeparator().length());
+    }
+    manager.refreshLog(filename);
+    assert manager.getIntervalStore().size() == 3 : "only the complete line should be read";
+
+    ProjectTimeManager.Utils.appendFile(filename, Arrays.asList("-23 10:00:00"));
+    manager.refreshLog(filename);
+    assert manager.getIntervalStore().size() == 4 : "the completed line should be read";
+    assert manager.getTotalTimeMs(null) == (7749l + 6837l + 3600l + 7200l) * 1000l
+        : "total time is wrong after tail loading";
+
+    // a rewritten log with the same length is detected by the checksum
+    List<String> rewritten =
+        Arrays.asList(
+            "2020-07-20 18:12:10 - 2020-07-20 20:21:19",
+            "2020-07-21 21:55:11 - 2020-07-21 23:49:08",
+            "2020-07-22 08:00:00 - 2020-07-22 09:00:00",
+            "2020-07-23 08:00:00 - 2020-07-23 11:00:00");
+    ProjectTimeManager.Utils.writeFile(filename, rewritten);
+    new File(filename).setLastModified(System.currentTimeMillis() + 10000l);
+    manager.refreshLog(filename);
+    assert manager.getIntervalStore().size() == 4 : "rewritten log should be read again";
+    assert manager.getTotalTimeMs(null) == (7749l + 6837l + 3600l + 10800l) * 1000l
+        : "rewritten log is not read again";
+
+    // a truncated log is read again
+    ProjectTimeManager.Utils.writeFile(filename, rewritten.subList(0, 1));
+    manager.refreshLog(filename);
+    assert manager.getIntervalStore().size() == 1 : "truncated log should be read again";
+
+    // a change in the last bytes before the read end is detected by their checksum
+    final List<String> long_log = new ArrayList<>();
+    for (int i = 0; i < 200; ++i) {
+      final String day = LocalDate.of(2019, 1, 1).plusDays(i).toString();
+      long_log.add(day + " 08:00:00 - " + day + " 09:00:00");
+    }
+    final String filename_long = ".ptm_projects/long.prt";
+    ProjectTimeManager.Utils.writeFile(filename_long, long_log);
+    manager = new ProjectTimeManager.TimeLogManager();
+    manager.readLog(filename_long);
+    try (RandomAccessFile raf = new RandomAccessFile(filename_long, "rw")) {
+      raf.seek(199l * (41l + System.lineSeparator().length()) + 18l);
+      raf.write('1');
+    }
+    ProjectTimeManager.Utils.appendFile(
+        filename_long, Arrays.asList("2020-01-01 08:00:00 - 2020-01-01 09:00:00"));
+    manager.refreshLog(filename_long);
+    assert manager.getIntervalStore().size() == 201 : "appended line should be read";
+    assert manager.getTotalTimeMs(null) == (201l * 3600l - 1l) * 1000l
+        : "changed last line should be read again";
+
+    // the cached project is extended instead of parsed again, the shared copy is kept
+    ProjectTimeManager.ProjectManager cached = ProjectTimeManager.ProjectCache.get("tail");
+    assert cached.getLogManager().getIntervalStore().size() == 1 : "cache should load the log";
+    ProjectTimeManager.Utils.appendFile(filename, rewritten.subList(1, 2));
+    ProjectTimeManager.ProjectManager updated = ProjectTimeManager.ProjectCache.get("tail");
+    assert updated != cached : "changed project should be a new object";
+    assert updated.getLogManager().getIntervalStore().size() == 2 : "new line should be read";
+    assert cached.getLogManager().getIntervalStore().size() == 1 : "shared copy is modified";
+
+    rmDir(new File(".ptm_projects"));
+  }
+}
@@ -0,0 +1,50 @@
+import java.io.File;
+import java.util.ArrayList;
+
+public class Main {
+  private static void rmDir(final File dir) {
+    if (dir.isDirectory()) {
+      for (final String file : dir.list()) {
+        rmDir(new File(dir, file));
+      }
+    }
+    dir.delete();
+  }
+
+  public static void main(String[] args) {
+    rmDir(new File(".ptm_projects"));
+
+    ProjectTimeManager.WorkloadGenerator generator =
+        new ProjectTimeManager.WorkloadGenerator()
+            .setSeed(7l)
+            .setProjectCount(4)
+            .setYearCount(2)
+            .setPendingCount(2)
+            .setSessionMinutes(new ProjectTimeManager.WorkloadGenerator.Distribution("exp:120"));
+    final long count = generator.generate();
+
+    final ArrayList<String> project_names = ProjectTimeManager.ProjectManager.getListProject();
+    assert project_names.size() == 4 : "all projects should be listed";
+    long count_read = 0l;
+    for (final String project_name : project_names) {
+      final ProjectTimeManager.TimeLogManager log_manager =
+          new ProjectTimeManager.ProjectManager(project_name).getLogManager();
+      assert log_manager.areLogsOrdered() : project_name + " is not in order";
+      count_read += log_manager.getIntervalStore().size();
+    }
+    assert count_read == count : "all sessions should be read";
+
+    // the pending sessions can be finished like after a crash
+    assert new ProjectTimeManager.ProjectManager(generator.getProjectName(1)).isRunning();
+    assert !new ProjectTimeManager.ProjectManager(generator.getProjectName(2)).isRunning();
+    ProjectTimeManager.ProjectManager.finishLastSession(generator.getProjectName(1));
+    assert new ProjectTimeManager.ProjectManager(generator.getProjectName(1))
+        .getLogManager()
+        .areLogsOrdered();
+
+    // the interval count replaces the years
+    rmDir(new File(".ptm_projects"));
+    assert generator.setProjectCount(1).setPendingCount(0).setIntervalCount(1000).generate()
+        == 1000l;
+  }
+}